@@ -1,28 +1,42 @@
 package com.skybird.controllayout;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.SystemClock;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
-import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.res.ResourcesCompat;
+import androidx.annotation.RequiresApi;
+import androidx.core.view.ViewCompat;
 import androidx.core.graphics.drawable.RoundedBitmapDrawable;
 import androidx.core.graphics.drawable.RoundedBitmapDrawableFactory;
 
+import com.skybird.controllayout.drawable.AbstractDrawable;
+import com.skybird.controllayout.drawable.BitmapPool;
+import com.skybird.controllayout.drawable.FrameAtlas;
+import com.skybird.controllayout.drawable.IconCache;
 import com.skybird.controllayout.drawable.IconDrawable;
+import com.skybird.controllayout.drawable.PrecomputedTextLayout;
+import com.skybird.controllayout.drawable.RegionPalette;
 import com.skybird.controllayout.drawable.RoundedCheckBoxDrawable;
 import com.skybird.controllayout.drawable.TextDrawable;
 
@@ -33,13 +47,37 @@ public class ControlLayout extends ViewGroup {
     public static final int TEXT_ALIGN_END = 1;
 
 
+    public static final int AUTO_SIZE_TEXT_TYPE_NONE = 0;
+    public static final int AUTO_SIZE_TEXT_TYPE_UNIFORM = 1;
+
+
     public static final int REGIONS_CORNER_ROUND = 1;
     public static final int REGIONS_CORNER_SQUARE = 0;
 
     private static final DisplayMetrics DISPLAY_METRICS = Resources.getSystem().getDisplayMetrics();
 
-    private GestureDetector touchDetector;
-
+    /*
+        touch is followed by the index of the region found on ACTION_DOWN , a press becomes a tap
+        when it is released in the touch slop , a long press after the long press timeout or
+        nothing when it moves out of the slop. nothing is allocated per event.
+        only touches on a region are taken and parents may still intercept them (to scroll) until
+        the press is confirmed after the tap timeout , and again once the touch leaves the slop.
+        other touches are given to View.onTouchEvent like the touches of any view
+     */
+    private int touchSlopSquare;
+    private int touchRegion = ItemEvent.NONE;
+    private float touchDownX, touchDownY;
+    private boolean pressConfirmed;
+    private boolean longPressed;
+    private boolean bodyTouch;
+    private final Runnable confirmPressCallback = this::confirmPress;
+    private final Runnable longPressCallback = this::onLongPress;
+
+    private final ListenerRegistry<OnItemClickListener> itemClickListeners = new ListenerRegistry<>();
+    private final ListenerRegistry<OnCheckedChangeListener> checkedChangeListeners = new ListenerRegistry<>();
+    private final ListenerRegistry<OnItemLongPressedListener> itemLongPressedListeners = new ListenerRegistry<>();
+
+    //listeners given through the setters , they replace each other but not the added ones
     private OnItemClickListener itemClickListener;
     private OnCheckedChangeListener checkedChangeListener;
     private OnItemLongPressedListener itemLongPressedListener;
@@ -52,23 +90,79 @@ public class ControlLayout extends ViewGroup {
     private TextDrawable textRegion;
     private RoundedCheckBoxDrawable checkboxRegion;
 
-    private boolean iconEnabled = true;
-    private boolean textEnabled = true;
-    private boolean checkboxEnabled = true;
+    /*
+        regions of the strip from start to end , the icon , text and checkbox regions are always
+        the first three and can only be disabled , more regions can be added after them
+     */
+    private final ArrayList<Region> regions = new ArrayList<>();
+
+    //left edges of the enabled regions in order , a touch is found by a binary search over them
+    private int[] hitRegionLefts = new int[3];
+    private int[] hitRegionIndexes = new int[3];
+    private int hitRegionCount;
+
 
+    /*
+        icons given as resources are taken from the IconCache at the size of their region
+        when the strip is laid out , so rows which show the same icons share their bitmaps
+     */
+    private int iconResId;
+    private int checkedIconResId;
+    private int uncheckedIconResId;
+    private int iconTint = IconCache.NO_TINT;
+    private int resolvedIconWidth = -1, resolvedIconHeight = -1;
+    private int resolvedCheckIconSize = -1;
 
-    private Drawable checkedIconSource;
-    private Drawable uncheckedIconSource;
+    /*
+        icon of setIconAsync which is not delivered yet, it is loaded when the icon region has a size
+        and the view is attached, and the load is cancelled when the view is detached or rebound
+     */
+    private IconSource pendingIconSource;
+    private IconLoader.Request iconRequest;
+
+    /*
+        bitmap of setIcon(Bitmap) is drawn from a copy downsampled to the pixel size of the icon region,
+        which is made again only when the region is resized. if the caller doesn't retain the source it is
+        dropped once the first copy exists and later copies are scaled from the previous one
+     */
+    private Bitmap iconSourceBitmap;
+    private Bitmap iconBitmap;
+    private boolean retainIconSource;
+    private final Rect iconBitmapRect = new Rect();
+    private final Paint iconBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
 
     private int controlRegionHeight;
     private int margin;
 
-    private float controlRegionIconWeight;
-    private float controlRegionTextWeight;
-    private float controlRegionCheckboxWeight;
-
     private int strokeLineCap = REGIONS_CORNER_SQUARE;
 
+    /*
+        bounds of the regions are computed again only if something they depend on is changed
+        (size , padding , margin , weights , enabled regions), such changes only need the
+        strip to be laid out again so they don't request a layout of the whole view
+     */
+    private boolean stripLayoutDirty = true;
+
+    private final Rect dirtyRect = new Rect();
+
+    /*
+        changes made between beginUpdate() and endUpdate() only collect what they need , the changed
+        regions , the union of the other dirty rects , a layout request and icons to resolve , which are
+        applied once at the end
+     */
+    private int updateDepth;
+    private final Rect updateDirtyRect = new Rect();
+    private final ArrayList<AbstractDrawable> updateDirtyRegions = new ArrayList<>(4);
+    private boolean updateRequestsLayout;
+    private boolean updateResolvesIcons;
+
+    private final PressFeedback pressFeedback = new PressFeedback(this);
+
+    private final ArrayList<View> matchParentChildren = new ArrayList<>(1);
+
+    //regions are recorded once and replayed until one of them is changed
+    private final StripDisplayList stripDisplayList = new StripDisplayList(this::drawStrip);
+
     public ControlLayout(Context context) {
         this(context, (AttributeSet) null);
     }
@@ -93,9 +187,9 @@ public class ControlLayout extends ViewGroup {
     private void init(TypedArray ta) {
 
         //enable and/or disable contents of the control part
-        iconEnabled = ta.getBoolean(R.styleable.ControlLayout_iconEnabled, iconEnabled);
-        textEnabled = ta.getBoolean(R.styleable.ControlLayout_textEnabled, textEnabled);
-        checkboxEnabled = ta.getBoolean(R.styleable.ControlLayout_checkboxEnabled, checkboxEnabled);
+        regions.get(ItemEvent.ICON).enabled = ta.getBoolean(R.styleable.ControlLayout_iconEnabled, true);
+        regions.get(ItemEvent.TEXT).enabled = ta.getBoolean(R.styleable.ControlLayout_textEnabled, true);
+        regions.get(ItemEvent.CHECKBOX).enabled = ta.getBoolean(R.styleable.ControlLayout_checkboxEnabled, true);
 
 
         int defaultControlHeight = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 48f
@@ -103,16 +197,17 @@ public class ControlLayout extends ViewGroup {
         controlRegionHeight = ta.getDimensionPixelSize(R.styleable.ControlLayout_controlRegionHeight, defaultControlHeight);
 
 
-        controlRegionIconWeight = ta.getFloat(R.styleable.ControlLayout_controlRegionIconWeight, 2);
-        controlRegionTextWeight = ta.getFloat(R.styleable.ControlLayout_controlRegionTextWeight, 12);
-        controlRegionCheckboxWeight = ta.getFloat(R.styleable.ControlLayout_controlRegionCheckboxWeight, 2);
+        regions.get(ItemEvent.ICON).weight = ta.getFloat(R.styleable.ControlLayout_controlRegionIconWeight, 2);
+        regions.get(ItemEvent.TEXT).weight = ta.getFloat(R.styleable.ControlLayout_controlRegionTextWeight, 12);
+        regions.get(ItemEvent.CHECKBOX).weight = ta.getFloat(R.styleable.ControlLayout_controlRegionCheckboxWeight, 2);
 
 
 
         //set margin for control part of the layout
         margin = ta.getDimensionPixelSize(R.styleable.ControlLayout_margin, 0);
 
-        touchDetector = new GestureDetector(getContext(), new OnTouchGestureListener(ControlLayout.this));
+        final int touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        touchSlopSquare = touchSlop * touchSlop;
 
     }
 
@@ -132,6 +227,15 @@ public class ControlLayout extends ViewGroup {
         checkboxRegion = new RoundedCheckBoxDrawable();
         checkboxRegion.setPaint(paint);
 
+        //regions and their icons invalidate and schedule frames through this view
+        iconRegion.setCallback(this);
+        textRegion.setCallback(this);
+        checkboxRegion.setCallback(this);
+
+        regions.add(new Region(iconRegion, 0));
+        regions.add(new Region(textRegion, 0));
+        regions.add(new Region(checkboxRegion, 0));
+
 
 
         /*
@@ -174,6 +278,20 @@ public class ControlLayout extends ViewGroup {
 
         int textAlign = ta.getInteger(R.styleable.ControlLayout_textAlign , TEXT_ALIGN_CENTER);
 
+        /*
+            auto size fits the text inside of the text region by choosing its size
+            between min and max , by default it never grows the text over textSize
+         */
+        boolean autoSizeText = ta.getInt(R.styleable.ControlLayout_autoSizeTextType, AUTO_SIZE_TEXT_TYPE_NONE)
+                == AUTO_SIZE_TEXT_TYPE_UNIFORM;
+        int defaultAutoSizeMinTextSize = (int) Math.min(textSize, TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                12f, Resources.getSystem().getDisplayMetrics()));
+        int autoSizeMinTextSize = ta.getDimensionPixelSize(R.styleable.ControlLayout_autoSizeMinTextSize,
+                defaultAutoSizeMinTextSize);
+        int autoSizeMaxTextSize = ta.getDimensionPixelSize(R.styleable.ControlLayout_autoSizeMaxTextSize, textSize);
+        int autoSizeGranularity = ta.getDimensionPixelSize(R.styleable.ControlLayout_autoSizeStepGranularity, 1);
+        int maxLines = ta.getInt(R.styleable.ControlLayout_android_maxLines, 0);
+
         //setting up the text appearance
         TextPaint textPaint = textRegion.getTextPaint();
         textPaint.setColor(textColor);
@@ -181,6 +299,9 @@ public class ControlLayout extends ViewGroup {
         setTextAlign(textAlign);
         textRegion.setText(text);
 
+        if (autoSizeText)
+            textRegion.setAutoSize(autoSizeMinTextSize, autoSizeMaxTextSize, autoSizeGranularity, maxLines);
+
         //whether to draw frame for contents of the control part or not
         boolean iconFrameEnabled = ta.getBoolean(R.styleable.ControlLayout_iconFrameEnabled, true);
         boolean textFrameEnabled = ta.getBoolean(R.styleable.ControlLayout_textFrameEnabled, true);
@@ -190,6 +311,9 @@ public class ControlLayout extends ViewGroup {
         textRegion.setDrawFrame(textFrameEnabled);
         checkboxRegion.setDrawFrame(checkboxFrameEnabled);
 
+        //draw frames from bitmaps shared by all of the ControlLayouts , meant for low end devices
+        setFrameAtlasEnabled(ta.getBoolean(R.styleable.ControlLayout_frameAtlasEnabled, false));
+
 
         /*
             how stroke line for frame of iconBox and textBox drawn there are two constants:
@@ -199,18 +323,41 @@ public class ControlLayout extends ViewGroup {
         setStrokeLineCap(strokeLineCap);
 
 
-        iconRegion.setIcon(ta.getDrawable(R.styleable.ControlLayout_iconSrc));
+        iconResId = ta.getResourceId(R.styleable.ControlLayout_iconSrc, 0);
+        if (iconResId == 0)
+            iconRegion.setIcon(ta.getDrawable(R.styleable.ControlLayout_iconSrc));
 
-        checkedIconSource = ta.getDrawable(R.styleable.ControlLayout_checkIconSrc);
-        uncheckedIconSource = ta.getDrawable(R.styleable.ControlLayout_uncheckIconSrc);
-        checkboxRegion.setCheckIcon(uncheckedIconSource);
+        checkedIconResId = ta.getResourceId(R.styleable.ControlLayout_checkIconSrc, 0);
+        if (checkedIconResId == 0)
+            checkboxRegion.setCheckedIcon(ta.getDrawable(R.styleable.ControlLayout_checkIconSrc));
+
+        uncheckedIconResId = ta.getResourceId(R.styleable.ControlLayout_uncheckIconSrc, 0);
+        if (uncheckedIconResId == 0)
+            checkboxRegion.setUncheckedIcon(ta.getDrawable(R.styleable.ControlLayout_uncheckIconSrc));
+
+        //with a tint the check icon is drawn for both states if no unchecked icon is given
+        ColorStateList checkIconTint = ta.getColorStateList(R.styleable.ControlLayout_checkIconTint);
+        if (checkIconTint != null && !ta.hasValue(R.styleable.ControlLayout_uncheckIconSrc)) {
+            uncheckedIconResId = checkedIconResId;
+            checkboxRegion.setCheckIcon(checkboxRegion.getCheckedIcon(), checkIconTint);
+        } else {
+            checkboxRegion.setCheckIconTint(checkIconTint);
+        }
 
 
     }
 
+    /*
+        every visible child is measured once , children which match the parent are measured again
+        only when the parent size was not exact and they didn't already get the final size
+     */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
 
+        final int stripHeight = controlRegionHeight + margin * 2;
+        final boolean parentExact = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY
+                && MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY;
+
         int maxWidth = 0;
         int maxHeight = 0;
         int childState = 0;
@@ -218,21 +365,27 @@ public class ControlLayout extends ViewGroup {
 
         for (int i = 0; i < getChildCount(); i++) {
 
-            View child = getChildAt(i);
+            final View child = getChildAt(i);
 
-            if (child.getVisibility() != GONE) {
+            if (child.getVisibility() == GONE)
+                continue;
 
-                measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
 
-                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            final int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec,
+                    getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin, lp.width);
+            final int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+                    getPaddingTop() + getPaddingBottom() + stripHeight + lp.topMargin + lp.bottomMargin, lp.height);
 
-                maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
-                maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
 
+            maxWidth = Math.max(maxWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+            maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
 
-                childState = View.combineMeasuredStates(childState, child.getMeasuredState());
+            childState = View.combineMeasuredStates(childState, child.getMeasuredState());
 
-            }
+            if (!parentExact && (lp.width == LayoutParams.MATCH_PARENT || lp.height == LayoutParams.MATCH_PARENT))
+                matchParentChildren.add(child);
         }
 
 
@@ -249,47 +402,209 @@ public class ControlLayout extends ViewGroup {
         setMeasuredDimension(resolveSizeAndState(maxWidth, widthMeasureSpec, childState),
                 resolveSizeAndState(maxHeight, heightMeasureSpec, childState << MEASURED_HEIGHT_STATE_SHIFT));
 
-        for (int i = 0; i < getChildCount(); i++) {
-            final View child = getChildAt(i);
+        for (int i = 0; i < matchParentChildren.size(); i++) {
 
-            LayoutParams lp = (LayoutParams) child.getLayoutParams();
-
-            int childWidthMeasureSpec;
-            if (lp.width == LayoutParams.MATCH_PARENT) {
-                childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredWidth()
-                                - getPaddingLeft() - getPaddingRight() - lp.leftMargin - lp.rightMargin
-                        , MeasureSpec.EXACTLY);
-            } else {
-                childWidthMeasureSpec = ViewGroup.getChildMeasureSpec(widthMeasureSpec,
-                        getPaddingStart() + getPaddingEnd() + lp.leftMargin + lp.rightMargin, lp.width);
-            }
+            final View child = matchParentChildren.get(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
 
+            final int width = Math.max(0, getMeasuredWidth() - getPaddingLeft() - getPaddingRight()
+                    - lp.leftMargin - lp.rightMargin);
+            final int height = Math.max(0, getMeasuredHeight() - getPaddingTop() - getPaddingBottom()
+                    - lp.topMargin - lp.bottomMargin - stripHeight);
 
-            int childHeightMeasureSpec;
-            if (lp.height == LayoutParams.MATCH_PARENT) {
-                childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredHeight()
-                                - getPaddingTop() - getPaddingBottom() - lp.topMargin - lp.bottomMargin
-                                - (controlRegionHeight + margin * 2)
-                        , MeasureSpec.EXACTLY);
-            } else {
+            final boolean matchWidth = lp.width == LayoutParams.MATCH_PARENT;
+            final boolean matchHeight = lp.height == LayoutParams.MATCH_PARENT;
 
-                childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec, getPaddingTop()
-                        + getPaddingBottom() + lp.topMargin + lp.bottomMargin, lp.height);
-            }
+            if ((matchWidth && child.getMeasuredWidth() != width) || (matchHeight && child.getMeasuredHeight() != height)) {
 
-            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+                final int childWidthMeasureSpec = matchWidth
+                        ? MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY)
+                        : getChildMeasureSpec(widthMeasureSpec,
+                        getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin, lp.width);
+                final int childHeightMeasureSpec = matchHeight
+                        ? MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY)
+                        : getChildMeasureSpec(heightMeasureSpec,
+                        getPaddingTop() + getPaddingBottom() + stripHeight + lp.topMargin + lp.bottomMargin, lp.height);
 
+                child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            }
         }
+
+        matchParentChildren.clear();
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
 
-        layoutDrawable(left, top, right, bottom);
+        if (changed || stripLayoutDirty)
+            layoutDrawable();
+
         layoutChildren();
 
     }
 
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        stripLayoutDirty = true;
+    }
+
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        super.setPaddingRelative(start, top, end, bottom);
+        stripLayoutDirty = true;
+    }
+
+    /*
+        redraw only the region which is changed (frame stroke included) instead of the whole view
+        with its body children. it is honored by software rendering and by hardware rendering
+        where partial redraws are supported , otherwise it works like invalidate()
+     */
+    void invalidateRegion(AbstractDrawable region) {
+
+        if (stripLayoutDirty) {
+            //bounds of the region are going to change so the old ones are not enough
+            invalidateStrip();
+            return;
+        }
+
+        if (updateDepth > 0) {
+            //the region can be changed again in the update , its bounds are taken once when it ends
+            if (!updateDirtyRegions.contains(region))
+                updateDirtyRegions.add(region);
+            return;
+        }
+
+        regionDirtyBounds(region, dirtyRect);
+        invalidateStrip(dirtyRect);
+    }
+
+    private void regionDirtyBounds(AbstractDrawable region, Rect out) {
+        region.prepareDraw();
+        out.set(region.getDirtyBounds());
+
+        //frame of every state is drawn with the stroke of the main paint
+        final int outset = (int) Math.ceil(paint.getStrokeWidth() / 2);
+        out.inset(-outset, -outset);
+    }
+
+    //redraw all of the regions but not the body
+    private void invalidateStrip() {
+        final int outset = (int) Math.ceil(paint.getStrokeWidth() / 2) + 1;
+        dirtyRect.set(0, 0, getWidth(), getPaddingTop() + controlRegionHeight + margin * 2 + outset);
+        invalidateStrip(dirtyRect);
+    }
+
+    //the strip is recorded again before the rectangle is redrawn
+    private void invalidateStrip(Rect dirty) {
+        if (updateDepth > 0) {
+            updateDirtyRect.union(dirty);
+            return;
+        }
+
+        stripDisplayList.invalidate();
+        invalidate(dirty);
+    }
+
+    @Override
+    public void invalidate() {
+        //regions may be changed from outside through the region getters
+        if (stripDisplayList != null)
+            stripDisplayList.invalidate();
+        super.invalidate();
+    }
+
+    //strip height is changed so body children are moved too
+    private void requestBodyLayout() {
+        stripLayoutDirty = true;
+
+        if (updateDepth > 0)
+            updateRequestsLayout = true;
+        else
+            requestLayout();
+    }
+
+    //icons are resolved by the strip layout if it is pending , otherwise now or at the end of the update
+    private void requestResolveIcons() {
+        if (stripLayoutDirty)
+            return;
+
+        if (updateDepth > 0)
+            updateResolvesIcons = true;
+        else
+            resolveIcons();
+    }
+
+    /*
+        collect the changes until the matching endUpdate() , e.g. when a row is bound. updates can be
+        nested and only the outermost endUpdate() applies them. must be called on the ui thread
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth == 0)
+            throw new IllegalStateException("endUpdate() called without beginUpdate()");
+
+        if (updateDepth > 1) {
+            updateDepth--;
+            return;
+        }
+
+        //resolved while still collecting so the icon region is part of the same invalidation
+        if (updateResolvesIcons) {
+            updateResolvesIcons = false;
+            if (!stripLayoutDirty)
+                resolveIcons();
+        }
+
+        if (!updateDirtyRegions.isEmpty()) {
+            if (stripLayoutDirty) {
+                invalidateStrip();
+            } else {
+                for (int i = 0; i < updateDirtyRegions.size(); i++) {
+                    regionDirtyBounds(updateDirtyRegions.get(i), dirtyRect);
+                    updateDirtyRect.union(dirtyRect);
+                }
+            }
+            updateDirtyRegions.clear();
+        }
+
+        updateDepth = 0;
+
+        if (updateRequestsLayout) {
+            updateRequestsLayout = false;
+            requestLayout();
+        }
+
+        if (!updateDirtyRect.isEmpty()) {
+            dirtyRect.set(updateDirtyRect);
+            updateDirtyRect.setEmpty();
+            invalidateStrip(dirtyRect);
+        }
+    }
+
+    //run the changes as one update
+    public void edit(Runnable changes) {
+        beginUpdate();
+        try {
+            changes.run();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    public boolean isUpdating() {
+        return updateDepth > 0;
+    }
+
+    //bounds of the regions are changed , lay out the strip before it is drawn again
+    private void invalidateStripLayout() {
+        stripLayoutDirty = true;
+        invalidateStrip();
+    }
+
     private void layoutChildren() {
 
         int parentLeft = getPaddingStart();
@@ -313,76 +628,305 @@ public class ControlLayout extends ViewGroup {
         }
     }
 
-    private void layoutDrawable(int left, int top, int right, int bottom) {
+    private void layoutDrawable() {
 
-        final float sumWeight = controlRegionIconWeight + controlRegionTextWeight + controlRegionCheckboxWeight;
-        System.out.println("sum weight: " + sumWeight);
+        stripLayoutDirty = false;
+        stripDisplayList.invalidate();
 
-        int parentWidth = getMeasuredWidth();
-        //later controller will have a user specific height
-        int parentHeight = getMeasuredHeight();
-
-        int parentLeft = getPaddingStart();
-        int parentRight = parentLeft + parentWidth - getPaddingEnd();
+        float sumWeight = 0;
+        int lastEnabled = -1;
 
+        for (int i = 0; i < regions.size(); i++) {
+            final Region region = regions.get(i);
+            if (region.enabled) {
+                sumWeight += region.weight;
+                lastEnabled = i;
+            }
+        }
 
-        int iconBoxWidth = (int) (parentWidth * (controlRegionIconWeight / sumWeight));
-        int textBoxWidth = (int) ((controlRegionTextWeight / sumWeight) * parentWidth);
-        int checkBoxWidth = (int) ((controlRegionCheckboxWeight / sumWeight) * parentWidth);
+        if (hitRegionLefts.length < regions.size()) {
+            hitRegionLefts = new int[regions.size()];
+            hitRegionIndexes = new int[regions.size()];
+        }
+        hitRegionCount = 0;
 
+        final int parentLeft = getPaddingStart();
+        final int parentRight = getMeasuredWidth() - getPaddingRight();
+        final int parentWidth = parentRight - parentLeft;
 
         final int topBound = getPaddingTop() + margin;
         final int bottomBound = topBound + controlRegionHeight - margin;
 
         int leftBound, rightBound = parentLeft;
 
-        if (iconEnabled) {
-            leftBound = parentLeft + margin;
+        for (int i = 0; i < regions.size(); i++) {
 
-            rightBound = leftBound + iconBoxWidth - margin;
+            final Region region = regions.get(i);
 
-            iconRegion.setBounds(leftBound, topBound, rightBound, bottomBound);
+            if (!region.enabled) {
+                //disabled regions have no bounds so they are never touched
+                region.drawable.setBounds(0, 0, 0, 0);
+                continue;
+            }
+
+            leftBound = rightBound + margin;
+
+            //the last region takes what is left so rounding never leaves a gap at the end
+            if (i == lastEnabled)
+                rightBound = parentRight - margin;
+            else
+                rightBound = leftBound + (int) (parentWidth * (region.weight / sumWeight)) - margin;
+
+            rightBound = Math.max(leftBound, rightBound);
+            region.drawable.setBounds(leftBound, topBound, rightBound, bottomBound);
+
+            hitRegionLefts[hitRegionCount] = leftBound;
+            hitRegionIndexes[hitRegionCount++] = i;
         }
 
-        if (textEnabled) {
+        resolveIcons();
 
-            leftBound = rightBound + margin;
-            rightBound = leftBound + textBoxWidth - margin;
+    }
 
-            textRegion.setBounds(leftBound, topBound, rightBound, bottomBound);
+    //index of the enabled region under the point or ItemEvent.NONE
+    private int findRegion(float x, float y) {
+
+        if (stripLayoutDirty)
+            layoutDrawable();
+
+        //last region which starts before x , regions don't overlap so only it can contain the point
+        int low = 0, high = hitRegionCount - 1, found = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (hitRegionLefts[mid] <= x) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
         }
 
-        if (checkboxEnabled) {
-            leftBound = rightBound + margin;
-            rightBound = getMeasuredWidth() - getPaddingRight() - margin;
+        if (found < 0)
+            return ItemEvent.NONE;
+
+        final int index = hitRegionIndexes[found];
+        return regions.get(index).drawable.isPointInside(x, y) ? index : ItemEvent.NONE;
+    }
 
-            int radius = Math.min((rightBound - leftBound) / 2 , (bottomBound - topBound)/2);
-            int centerX = leftBound + (rightBound - leftBound) /2;
-            int centerY =topBound + (bottomBound - topBound)/2;
-            checkboxRegion.setCenterX(centerX);
-            checkboxRegion.setCenterY(centerY);
-            checkboxRegion.setRadius(radius);
-            checkboxRegion.setBounds(leftBound, topBound, rightBound, bottomBound);
+    //take icons given as resources from the IconCache if the size of their region is changed
+    private void resolveIcons() {
 
+        if (iconRequest != null && (iconRequest.width != iconRegion.getWidth()
+                || iconRequest.height != iconRegion.getHeight())) {
+            //decoded for another size , decode it again for the new one
+            iconRequest.cancel();
+            iconRequest = null;
         }
+        startIconLoad();
+
+        if (iconResId != 0 && (iconRegion.getWidth() != resolvedIconWidth
+                || iconRegion.getHeight() != resolvedIconHeight)) {
 
+            resolvedIconWidth = iconRegion.getWidth();
+            resolvedIconHeight = iconRegion.getHeight();
+            iconRegion.setIcon(IconCache.get(getResources(), iconResId, resolvedIconWidth, resolvedIconHeight,
+                    iconTint));
+        }
+
+        if (iconSourceBitmap != null && (iconRegion.getWidth() != resolvedIconWidth
+                || iconRegion.getHeight() != resolvedIconHeight)) {
+
+            resolvedIconWidth = iconRegion.getWidth();
+            resolvedIconHeight = iconRegion.getHeight();
+            scaleIconBitmap(resolvedIconWidth, resolvedIconHeight);
+        }
+
+        checkboxRegion.setTargetDensity(getResources().getDisplayMetrics().densityDpi);
+
+        final int checkIconSize = (int) (checkboxRegion.getRadius() * 2);
+
+        if ((checkedIconResId != 0 || uncheckedIconResId != 0) && checkIconSize != resolvedCheckIconSize) {
+
+            resolvedCheckIconSize = checkIconSize;
+
+            if (checkedIconResId != 0)
+                checkboxRegion.setCheckedIcon(IconCache.get(getResources(), checkedIconResId, checkIconSize,
+                        checkIconSize, IconCache.NO_TINT));
+
+            if (uncheckedIconResId == checkedIconResId)
+                checkboxRegion.setUncheckedIcon(checkboxRegion.getCheckedIcon());
+            else if (uncheckedIconResId != 0)
+                checkboxRegion.setUncheckedIcon(IconCache.get(getResources(), uncheckedIconResId, checkIconSize,
+                        checkIconSize, IconCache.NO_TINT));
+        }
+    }
+
+    //draw the icon bitmap from a pooled copy of the region size if the source is bigger than the region
+    private void scaleIconBitmap(int width, int height) {
+
+        final Bitmap source = iconSourceBitmap;
+        final Bitmap previous = iconBitmap;
+
+        if (width > 0 && height > 0 && (source.getWidth() > width || source.getHeight() > height)) {
+
+            //same stretch to the bounds as RoundedBitmapDrawable did on every draw , but only once
+            iconBitmap = BitmapPool.obtain(width, height);
+            iconBitmapRect.set(0, 0, width, height);
+            new Canvas(iconBitmap).drawBitmap(source, null, iconBitmapRect, iconBitmapPaint);
+
+            if (!retainIconSource)
+                iconSourceBitmap = iconBitmap;
+
+        } else if (source != previous) {
+            //small enough to draw as it is
+            iconBitmap = null;
+        }
+
+        RoundedBitmapDrawable drawable = RoundedBitmapDrawableFactory.create(getResources(),
+                iconBitmap != null ? iconBitmap : source);
+        drawable.setCornerRadius(iconRegion.getStrokeRadius());
+        iconRegion.setIcon(drawable);
+
+        //the previous copy isn't drawn or scaled from anymore
+        if (previous != null && previous != iconBitmap)
+            BitmapPool.release(previous);
+    }
+
+    private void clearIconBitmap() {
+        if (iconBitmap != null)
+            BitmapPool.release(iconBitmap);
+
+        iconBitmap = null;
+        iconSourceBitmap = null;
     }
 
     @Override
-    protected void dispatchDraw(Canvas canvas) {
-        super.dispatchDraw(canvas);
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return indexOfRegion(who) >= 0 || super.verifyDrawable(who);
+    }
+
+    //animated icons redraw only their own region , not the body children
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable instanceof AbstractDrawable && verifyDrawable(drawable))
+            invalidateRegion((AbstractDrawable) drawable);
+        else
+            super.invalidateDrawable(drawable);
+    }
+
+    /*
+        regions are visible only while the view is shown , i.e. it and all of its ancestors are visible
+        and attached. since nougat onVisibilityAggregated tells it , before that it is checked whenever
+        the visibility of the view , of an ancestor or of the window changes
+     */
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N)
+            setRegionsVisible(isShownInWindow());
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N)
+            setRegionsVisible(isShownInWindow());
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        setRegionsVisible(isVisible);
+    }
+
+    private boolean isShownInWindow() {
+        return isShown() && getWindowVisibility() == VISIBLE;
+    }
+
+    private void setRegionsVisible(boolean visible) {
+        for (int i = 0; i < regions.size(); i++)
+            regions.get(i).drawable.setVisible(visible, false);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        setRegionsVisible(isShownInWindow());
+        startIconLoad();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        //stop animated icons and drop their pending frames
+        cancelTouch();
+        pressFeedback.cancel();
+        setRegionsVisible(false);
+        for (int i = 0; i < regions.size(); i++)
+            unscheduleDrawable(regions.get(i).drawable);
+
+        //keep the source so the icon is loaded again if the view is attached again
+        if (iconRequest != null) {
+            iconRequest.cancel();
+            iconRequest = null;
+        }
+    }
+
+    private void startIconLoad() {
+
+        if (pendingIconSource == null || iconRequest != null || stripLayoutDirty
+                || !ViewCompat.isAttachedToWindow(this))
+            return;
 
+        final int width = iconRegion.getWidth();
+        final int height = iconRegion.getHeight();
 
-        if (iconEnabled)
-            iconRegion.draw(canvas);
+        if (width <= 0 || height <= 0)
+            return;
 
-        if (textEnabled)
-            textRegion.draw(canvas);
+        iconRequest = new IconLoader.Request(this, pendingIconSource, width, height);
+        iconRequest.start();
+    }
+
+    private void cancelIconLoad() {
+        if (iconRequest != null)
+            iconRequest.cancel();
+
+        iconRequest = null;
+        pendingIconSource = null;
+    }
 
+    void onIconLoaded(IconLoader.Request request, Drawable icon) {
 
-        if (checkboxEnabled) {
+        if (request != iconRequest)
+            return;
 
-            checkboxRegion.draw(canvas);
+        iconRequest = null;
+        pendingIconSource = null;
+
+        iconRegion.setIcon(icon);
+        invalidateRegion(iconRegion);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+
+        if (stripLayoutDirty)
+            layoutDrawable();
+
+        stripDisplayList.draw(canvas, getWidth(), getHeight());
+    }
+
+    private void drawStrip(Canvas canvas) {
+        for (int i = 0; i < regions.size(); i++) {
+            final Region region = regions.get(i);
+            if (region.enabled)
+                region.drawable.draw(canvas);
         }
     }
 
@@ -411,14 +955,202 @@ public class ControlLayout extends ViewGroup {
     @Override
     public boolean onTouchEvent(MotionEvent event) {
 
+        final float x = event.getX();
+        final float y = event.getY();
 
-        requestDisallowInterceptTouchEvent(true);
-        touchDetector.onTouchEvent(event);
-        performClick();
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN)
+            bodyTouch = !onTouchDown(x, y);
+
+        //body and the gaps between regions are handled like a plain view , so a clickable layout is
+        //pressed and clicked there and a layout which is not clickable leaves the touch to the parent
+        if (bodyTouch)
+            return super.onTouchEvent(event);
+
+        switch (event.getActionMasked()) {
+
+            case MotionEvent.ACTION_DOWN:
+                return true;
 
+            case MotionEvent.ACTION_MOVE:
+                if (touchRegion != ItemEvent.NONE) {
+                    final float dx = x - touchDownX;
+                    final float dy = y - touchDownY;
+
+                    if (dx * dx + dy * dy > touchSlopSquare) {
+                        //the touch is turned into a scroll , no fade for a press which didn't happen
+                        cancelTouch();
+                        requestDisallowInterceptTouchEvent(false);
+                    }
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+                if (touchRegion != ItemEvent.NONE && !longPressed) {
+                    removeCallbacks(confirmPressCallback);
+                    removeCallbacks(longPressCallback);
+
+                    //tapped before the tap timeout , the press is shown while it fades
+                    if (!pressConfirmed)
+                        showPress();
+
+                    performClick();
+                    onTap(event.getEventTime());
+                } else {
+                    cancelTouch();
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                cancelTouch();
+                break;
+        }
+
+        return true;
+    }
+
+    private boolean onTouchDown(float x, float y) {
+
+        cancelTouch();
+
+        if (!isEnabled() || y > getPaddingTop() + controlRegionHeight + margin * 2)
+            return false;
+
+        touchRegion = findRegion(x, y);
+        if (touchRegion == ItemEvent.NONE)
+            return false;
+
+        touchDownX = x;
+        touchDownY = y;
+        pressConfirmed = false;
+        longPressed = false;
+
+        postDelayed(confirmPressCallback, ViewConfiguration.getTapTimeout());
         return true;
     }
 
+    //the touch stayed on the region for the tap timeout , it is a press and not the start of a scroll
+    private void confirmPress() {
+
+        if (touchRegion == ItemEvent.NONE)
+            return;
+
+        pressConfirmed = true;
+        requestDisallowInterceptTouchEvent(true);
+        showPress();
+
+        if (touchRegion != ItemEvent.CHECKBOX)
+            postDelayed(longPressCallback, ViewConfiguration.getLongPressTimeout()
+                    - ViewConfiguration.getTapTimeout());
+    }
+
+    private void showPress() {
+        if (touchRegion == ItemEvent.CHECKBOX) {
+            checkboxRegion.setPressed(true);
+            invalidateRegion(checkboxRegion);
+        } else {
+            pressFeedback.press(regions.get(touchRegion).drawable);
+        }
+    }
+
+    private void onTap(long eventTime) {
+
+        final int region = touchRegion;
+        touchRegion = ItemEvent.NONE;
+
+        if (region == ItemEvent.CHECKBOX) {
+            checkboxRegion.setPressed(false);
+            setChecked(!checked);
+
+            dispatchCheckedChange(checked);
+        } else {
+            pressFeedback.release();
+        }
+
+        if (!itemClickListeners.isEmpty()) {
+            final ItemEvent event = ItemEvent.obtain(region, touchDownX, touchDownY, eventTime, checked);
+            dispatchItemClick(event);
+            event.recycle();
+        }
+    }
+
+    private void onLongPress() {
+
+        if (touchRegion == ItemEvent.NONE)
+            return;
+
+        longPressed = true;
+
+        //the highlight fades on frame callbacks instead of blocking the ui thread until it is redrawn
+        pressFeedback.release();
+
+        if (!itemLongPressedListeners.isEmpty()) {
+            final ItemEvent event = ItemEvent.obtain(touchRegion, touchDownX, touchDownY,
+                    SystemClock.uptimeMillis(), checked);
+            dispatchItemLongPressed(event);
+            event.recycle();
+        }
+    }
+
+    /*
+        listeners without an executor are called in order on the ui thread , the others get
+        a copy of the event on their executor which is recycled after they return
+     */
+    private void dispatchItemClick(ItemEvent event) {
+        for (final ListenerRegistry.Subscription<OnItemClickListener> subscription : itemClickListeners.snapshot()) {
+            if (subscription.executor == null) {
+                subscription.listener.onItemClick(event);
+            } else {
+                final ItemEvent copy = ItemEvent.obtain(event);
+                subscription.executor.execute(() -> {
+                    subscription.listener.onItemClick(copy);
+                    copy.recycle();
+                });
+            }
+        }
+    }
+
+    private void dispatchItemLongPressed(ItemEvent event) {
+        for (final ListenerRegistry.Subscription<OnItemLongPressedListener> subscription
+                : itemLongPressedListeners.snapshot()) {
+            if (subscription.executor == null) {
+                subscription.listener.onItemLongPressed(event);
+            } else {
+                final ItemEvent copy = ItemEvent.obtain(event);
+                subscription.executor.execute(() -> {
+                    subscription.listener.onItemLongPressed(copy);
+                    copy.recycle();
+                });
+            }
+        }
+    }
+
+    private void dispatchCheckedChange(final boolean checked) {
+        for (final ListenerRegistry.Subscription<OnCheckedChangeListener> subscription
+                : checkedChangeListeners.snapshot()) {
+            if (subscription.executor == null)
+                subscription.listener.onCheckChanged(checked);
+            else
+                subscription.executor.execute(() -> subscription.listener.onCheckChanged(checked));
+        }
+    }
+
+    //forget the touched region without a click
+    private void cancelTouch() {
+
+        removeCallbacks(confirmPressCallback);
+        removeCallbacks(longPressCallback);
+
+        if (pressConfirmed && touchRegion == ItemEvent.CHECKBOX) {
+            checkboxRegion.setPressed(false);
+            invalidateRegion(checkboxRegion);
+        } else if (pressConfirmed && touchRegion != ItemEvent.NONE && !longPressed) {
+            pressFeedback.cancel();
+        }
+
+        touchRegion = ItemEvent.NONE;
+        pressConfirmed = false;
+    }
+
     @Override
     public boolean performClick() {
         return super.performClick();
@@ -426,15 +1158,79 @@ public class ControlLayout extends ViewGroup {
 
 
     public void setOnItemClickListener(OnItemClickListener listener) {
+        if (itemClickListener != null)
+            itemClickListeners.remove(itemClickListener);
+
         itemClickListener = listener;
+
+        if (listener != null)
+            itemClickListeners.add(listener, null);
     }
 
     public void setOnCheckedChangeListener(OnCheckedChangeListener listener) {
+        if (checkedChangeListener != null)
+            checkedChangeListeners.remove(checkedChangeListener);
+
         checkedChangeListener = listener;
+
+        if (listener != null)
+            checkedChangeListeners.add(listener, null);
     }
 
     public void setOnLongItemPressedListener(OnItemLongPressedListener listener) {
+        if (itemLongPressedListener != null)
+            itemLongPressedListeners.remove(itemLongPressedListener);
+
         itemLongPressedListener = listener;
+
+        if (listener != null)
+            itemLongPressedListeners.add(listener, null);
+    }
+
+    /*
+        listeners are added next to the one of the setter , with an executor they are called on it
+        (e.g. for database or analytics work) instead of on the ui thread while the touch is handled
+     */
+    public void addOnItemClickListener(OnItemClickListener listener) {
+        addOnItemClickListener(listener, null);
+    }
+
+    public void addOnItemClickListener(OnItemClickListener listener, @Nullable Executor executor) {
+        itemClickListeners.add(listener, executor);
+    }
+
+    public boolean removeOnItemClickListener(OnItemClickListener listener) {
+        if (listener == itemClickListener)
+            itemClickListener = null;
+        return itemClickListeners.remove(listener);
+    }
+
+    public void addOnCheckedChangeListener(OnCheckedChangeListener listener) {
+        addOnCheckedChangeListener(listener, null);
+    }
+
+    public void addOnCheckedChangeListener(OnCheckedChangeListener listener, @Nullable Executor executor) {
+        checkedChangeListeners.add(listener, executor);
+    }
+
+    public boolean removeOnCheckedChangeListener(OnCheckedChangeListener listener) {
+        if (listener == checkedChangeListener)
+            checkedChangeListener = null;
+        return checkedChangeListeners.remove(listener);
+    }
+
+    public void addOnItemLongPressedListener(OnItemLongPressedListener listener) {
+        addOnItemLongPressedListener(listener, null);
+    }
+
+    public void addOnItemLongPressedListener(OnItemLongPressedListener listener, @Nullable Executor executor) {
+        itemLongPressedListeners.add(listener, executor);
+    }
+
+    public boolean removeOnItemLongPressedListener(OnItemLongPressedListener listener) {
+        if (listener == itemLongPressedListener)
+            itemLongPressedListener = null;
+        return itemLongPressedListeners.remove(listener);
     }
 
 
@@ -443,8 +1239,12 @@ public class ControlLayout extends ViewGroup {
     }
 
     public void setControlRegionHeight(int controlRegionHeight) {
+        if (this.controlRegionHeight == controlRegionHeight)
+            return;
+
         this.controlRegionHeight = controlRegionHeight;
-        requestLayout();
+        //body children are moved too so it needs a whole layout
+        requestBodyLayout();
     }
 
     public int getBodyHeight() {
@@ -455,9 +1255,39 @@ public class ControlLayout extends ViewGroup {
         return checked;
     }
 
+    /*
+        single check icon drawn in the color of the checked , pressed and unchecked state of the tint,
+        instead of keeping a checked and an unchecked icon which only differ in color
+     */
+    public void setCheckIcon(@Nullable Drawable icon, @Nullable ColorStateList tint) {
+        checkedIconResId = uncheckedIconResId = 0;
+        checkboxRegion.setCheckIcon(icon, tint);
+        invalidateRegion(checkboxRegion);
+    }
+
+    public void setCheckIcon(int resId, @Nullable ColorStateList tint) {
+        checkedIconResId = uncheckedIconResId = resId;
+        resolvedCheckIconSize = -1;
+        checkboxRegion.setCheckIcon(null, tint);
+
+        requestResolveIcons();
+
+        invalidateRegion(checkboxRegion);
+    }
+
+    @Nullable
+    public ColorStateList getCheckIconTint() {
+        return checkboxRegion.getCheckIconTint();
+    }
+
     public void setChecked(boolean checked) {
+        if (this.checked == checked)
+            return;
+
         this.checked = checked;
-        invalidate();
+        checkboxRegion.setChecked(checked);
+        updateRegionState(ItemEvent.CHECKBOX);
+        invalidateRegion(checkboxRegion);
     }
 
 
@@ -467,7 +1297,55 @@ public class ControlLayout extends ViewGroup {
 
     public void setText(String text) {
         textRegion.setText(text);
-        invalidate();
+        invalidateText();
+    }
+
+    public void setText(CharSequence text) {
+        textRegion.setText(text);
+        invalidateText();
+    }
+
+    //in ticker mode chars are copied , nothing is allocated and only the changed chars are redrawn
+    public void setText(char[] buffer, int offset, int length) {
+        textRegion.setText(buffer, offset, length);
+        invalidateText();
+    }
+
+    public boolean isTickerMode() {
+        return textRegion.isTickerMode();
+    }
+
+    /*
+        ticker mode is for texts which are updated many times per second like counters and timers,
+        use setText(char[] , int , int) or setText(CharSequence) to update them without allocation
+     */
+    public void setTickerMode(boolean tickerMode) {
+        textRegion.setTickerMode(tickerMode);
+        invalidateRegion(textRegion);
+    }
+
+    private void invalidateText() {
+        if (textRegion.isTickerMode()) {
+            Rect dirty = textRegion.getTextDirtyBounds();
+            if (!dirty.isEmpty())
+                invalidateStrip(dirty);
+        } else {
+            invalidateRegion(textRegion);
+        }
+    }
+
+    /*
+        set text measured ahead of time by PrecomputedTextLayout.create(text , getTextLayoutParams() , width)
+        on any thread, width is the width of the text region (getTextRegion().getWidth())
+     */
+    public void setPrecomputedText(PrecomputedTextLayout text) {
+        textRegion.setPrecomputedText(text);
+        invalidateRegion(textRegion);
+    }
+
+    //properties of the text paint which precomputed texts must be created with
+    public PrecomputedTextLayout.Params getTextLayoutParams() {
+        return new PrecomputedTextLayout.Params(textRegion.getTextPaint());
     }
 
     public int getTextColor() {
@@ -476,7 +1354,7 @@ public class ControlLayout extends ViewGroup {
 
     public void setTextColor(int textColor) {
         textRegion.getTextPaint().setColor(textColor);
-        invalidate();
+        invalidateRegion(textRegion);
     }
 
     public float getTextSize() {
@@ -485,7 +1363,26 @@ public class ControlLayout extends ViewGroup {
 
     public void setTextSize(int textSize) {
         textRegion.getTextPaint().setTextSize(textSize);
-        invalidate();
+        invalidateRegion(textRegion);
+    }
+
+    public boolean isAutoSizeText() {
+        return textRegion.isAutoSizeEnabled();
+    }
+
+    /*
+        fit the text inside of the text region with the largest size between min and max (in pixels)
+        stepping by granularity, maxLines <= 0 means any number of lines which fit in the region height.
+        while auto size is enabled setTextSize has no effect
+     */
+    public void setAutoSizeText(int minTextSize, int maxTextSize, int granularity, int maxLines) {
+        textRegion.setAutoSize(minTextSize, maxTextSize, granularity, maxLines);
+        invalidateRegion(textRegion);
+    }
+
+    public void disableAutoSizeText() {
+        textRegion.disableAutoSize();
+        invalidateRegion(textRegion);
     }
 
     public Paint.Align getTextAlign() {
@@ -516,7 +1413,7 @@ public class ControlLayout extends ViewGroup {
 
     public void setStrokeWidth(int strokeWidth) {
         paint.setStrokeWidth(strokeWidth);
-        invalidate();
+        invalidateStrip();
     }
 
     public int getStrokeColor() {
@@ -525,7 +1422,7 @@ public class ControlLayout extends ViewGroup {
 
     public void setStrokeColor(int strokeColor) {
         paint.setColor(strokeColor);
-        invalidate();
+        invalidateStrip();
     }
 
 
@@ -533,9 +1430,47 @@ public class ControlLayout extends ViewGroup {
         return paint;
     }
 
+    //frame paint of the icon , text and checkbox regions , their palettes are derived from it
     public void setPaint(Paint paint) {
         this.paint = paint;
-        invalidate();
+        iconRegion.setPaint(paint);
+        textRegion.setPaint(paint);
+        checkboxRegion.setPaint(paint);
+        invalidateStrip();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        if (enabled == isEnabled())
+            return;
+
+        super.setEnabled(enabled);
+
+        if (!enabled)
+            cancelTouch();
+
+        for (int i = 0; i < regions.size(); i++)
+            updateRegionState(i);
+        invalidateStrip();
+    }
+
+    //palette state of the region when it is not pressed
+    private void updateRegionState(int index) {
+
+        final AbstractDrawable region = regions.get(index).drawable;
+
+        final int state;
+        if (!isEnabled())
+            state = RegionPalette.STATE_DISABLED;
+        else if (index == ItemEvent.CHECKBOX && checked)
+            state = RegionPalette.STATE_CHECKED;
+        else
+            state = RegionPalette.STATE_NORMAL;
+
+        if (pressFeedback.isHighlighting(region))
+            pressFeedback.setRegionState(region, state);
+        else
+            region.setPaletteState(state);
     }
 
 
@@ -567,13 +1502,30 @@ public class ControlLayout extends ViewGroup {
             iconRegion.setStrokeRadius(value);
             textRegion.setCornerRadius(value);
         }
-        invalidate();
+        invalidateStrip();
+    }
+
+    public boolean isFrameAtlasEnabled() {
+        return iconRegion.isFrameAtlasEnabled();
+    }
+
+    /*
+        rasterize each distinct frame once into the FrameAtlas and draw the frames of the regions
+        from it instead of drawing anti aliased round rects and circles on every draw
+     */
+    public void setFrameAtlasEnabled(boolean frameAtlasEnabled) {
+        if (frameAtlasEnabled)
+            FrameAtlas.registerMemoryCallbacks(getContext());
+
+        for (int i = 0; i < regions.size(); i++)
+            regions.get(i).drawable.setFrameAtlasEnabled(frameAtlasEnabled);
+        invalidateStrip();
     }
 
     //set draw frame of the IconDrawable
     public void setDrawIconFrame(boolean drawIconFrame) {
         iconRegion.setDrawFrame(drawIconFrame);
-        invalidate();
+        invalidateRegion(iconRegion);
     }
 
     //check if frame of the IconDrawable is set to draw
@@ -584,7 +1536,7 @@ public class ControlLayout extends ViewGroup {
     //set draw frame of the TextDrawable
     public void setDrawTextBoxFrame(boolean drawTextBoxFrame) {
         textRegion.setDrawFrame(drawTextBoxFrame);
-        invalidate();
+        invalidateRegion(textRegion);
     }
 
     //Check if frame of the TextDrawable is set to draw
@@ -595,7 +1547,7 @@ public class ControlLayout extends ViewGroup {
     //set draw frame of the RoundedCheckBoxDrawable
     public void setDrawCheckBoxFrame(boolean drawCheckBoxFrame) {
         checkboxRegion.setDrawFrame(drawCheckBoxFrame);
-        invalidate();
+        invalidateRegion(checkboxRegion);
     }
 
     //check if frame of the RoundedCheckBoxDrawable is set to draw
@@ -610,53 +1562,192 @@ public class ControlLayout extends ViewGroup {
     }
 
     public void setIcon(Drawable icon) {
+        cancelIconLoad();
+        clearIconBitmap();
+        iconResId = 0;
         this.iconRegion.setIcon(icon);
-        invalidate();
+        invalidateRegion(iconRegion);
     }
 
     //set icon of the IconDrawable
     public void setIcon(Bitmap icon) {
+        setIcon(icon, true);
+    }
 
-        RoundedBitmapDrawable drawable = RoundedBitmapDrawableFactory.create(getResources(), icon);
-        drawable.setCornerRadius(iconRegion.getStrokeRadius());
+    /*
+        icon is drawn from a copy downsampled to the size of the icon region , if retainSource is false
+        the bitmap is not referenced anymore once it is copied so a large bitmap can be collected
+     */
+    public void setIcon(Bitmap icon, boolean retainSource) {
+
+        cancelIconLoad();
+        clearIconBitmap();
+        iconResId = 0;
+        iconRegion.setIcon(null);
+
+        iconSourceBitmap = icon;
+        retainIconSource = retainSource;
+        resolvedIconWidth = resolvedIconHeight = -1;
 
-        this.iconRegion.setIcon(drawable);
+        if (icon != null)
+            requestResolveIcons();
 
-        invalidate();
+        invalidateRegion(iconRegion);
     }
 
 
+    //icon is taken from the IconCache at the size of the icon region
     public void setIcon(int resId) {
-        this.iconRegion.setIcon(ResourcesCompat.getDrawable(getResources(), resId, null));
+        cancelIconLoad();
+        clearIconBitmap();
+        iconResId = resId;
+        resolvedIconWidth = resolvedIconHeight = -1;
+        iconRegion.setIcon(null);
+
+        requestResolveIcons();
+
+        invalidateRegion(iconRegion);
 
     }
 
 
+    /*
+        decode the icon on a background thread at the size of the icon region and show it when it is ready,
+        placeholder is shown until then. setting another icon or detaching the view cancels the load
+     */
+    public void setIconAsync(IconSource source, @Nullable Drawable placeholder) {
+        cancelIconLoad();
+        clearIconBitmap();
+        iconResId = 0;
+        iconRegion.setIcon(placeholder);
+
+        pendingIconSource = source;
+        startIconLoad();
+
+        invalidateRegion(iconRegion);
+    }
+
+    public int getIconTint() {
+        return iconTint;
+    }
+
+    //tint color of icons set as resources , IconCache.NO_TINT draws them with their own colors
+    public void setIconTint(int iconTint) {
+        if (this.iconTint == iconTint)
+            return;
+
+        this.iconTint = iconTint;
+
+        if (iconResId == 0)
+            return;
+
+        resolvedIconWidth = resolvedIconHeight = -1;
+
+        requestResolveIcons();
+
+        invalidateRegion(iconRegion);
+    }
+
     public boolean isIconEnabled() {
-        return iconEnabled;
+        return isRegionEnabled(ItemEvent.ICON);
     }
 
     public void setIconEnabled(boolean iconEnabled) {
-        this.iconEnabled = iconEnabled;
-        invalidate();
+        setRegionEnabled(ItemEvent.ICON, iconEnabled);
     }
 
     public boolean isTextEnabled() {
-        return textEnabled;
+        return isRegionEnabled(ItemEvent.TEXT);
     }
 
     public void setTextEnabled(boolean textEnabled) {
-        this.textEnabled = textEnabled;
-        invalidate();
+        setRegionEnabled(ItemEvent.TEXT, textEnabled);
     }
 
     public boolean isCheckboxEnabled() {
-        return checkboxEnabled;
+        return isRegionEnabled(ItemEvent.CHECKBOX);
     }
 
     public void setCheckboxEnabled(boolean checkboxEnabled) {
-        this.checkboxEnabled = checkboxEnabled;
-        invalidate();
+        setRegionEnabled(ItemEvent.CHECKBOX, checkboxEnabled);
+    }
+
+
+    /*
+        add a region at the end of the strip , its width is its share of the sum of the weights of the
+        enabled regions. returns the index of the region which is also the item of its ItemEvents
+     */
+    public int addRegion(AbstractDrawable drawable, float weight) {
+        drawable.setCallback(this);
+        drawable.setVisible(isShownInWindow(), false);
+        drawable.setFrameAtlasEnabled(isFrameAtlasEnabled());
+
+        regions.add(new Region(drawable, weight));
+        updateRegionState(regions.size() - 1);
+        invalidateStripLayout();
+        return regions.size() - 1;
+    }
+
+    //remove an added region , the icon , text and checkbox regions can only be disabled
+    public boolean removeRegion(AbstractDrawable drawable) {
+        final int index = indexOfRegion(drawable);
+        if (index <= ItemEvent.CHECKBOX)
+            return false;
+
+        //indexes of the regions after it are changed
+        cancelTouch();
+
+        //the highlight paint must not stay on a removed region
+        if (pressFeedback.isHighlighting(drawable))
+            pressFeedback.cancel();
+
+        regions.remove(index);
+        unscheduleDrawable(drawable);
+        drawable.setCallback(null);
+        invalidateStripLayout();
+        return true;
+    }
+
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    public Region getRegion(int index) {
+        return regions.get(index);
+    }
+
+    public int indexOfRegion(Drawable drawable) {
+        for (int i = 0; i < regions.size(); i++) {
+            if (regions.get(i).drawable == drawable)
+                return i;
+        }
+        return -1;
+    }
+
+    public boolean isRegionEnabled(int index) {
+        return regions.get(index).enabled;
+    }
+
+    public void setRegionEnabled(int index, boolean enabled) {
+        final Region region = regions.get(index);
+        if (region.enabled == enabled)
+            return;
+
+        region.enabled = enabled;
+        invalidateStripLayout();
+    }
+
+    public float getRegionWeight(int index) {
+        return regions.get(index).weight;
+    }
+
+    public void setRegionWeight(int index, float weight) {
+        final Region region = regions.get(index);
+        if (region.weight == weight)
+            return;
+
+        region.weight = weight;
+        invalidateStripLayout();
     }
 
 
@@ -675,30 +1766,27 @@ public class ControlLayout extends ViewGroup {
 
 
     public float getControlRegionIconWeight() {
-        return controlRegionIconWeight;
+        return getRegionWeight(ItemEvent.ICON);
     }
 
     public void setControlRegionIconWeight(float controlRegionIconWeight) {
-        this.controlRegionIconWeight = controlRegionIconWeight;
-        invalidate();
+        setRegionWeight(ItemEvent.ICON, controlRegionIconWeight);
     }
 
     public float getControlRegionTextWeight() {
-        return controlRegionTextWeight;
+        return getRegionWeight(ItemEvent.TEXT);
     }
 
     public void setControlRegionTextWeight(float controlRegionTextWeight) {
-        this.controlRegionTextWeight = controlRegionTextWeight;
-        invalidate();
+        setRegionWeight(ItemEvent.TEXT, controlRegionTextWeight);
     }
 
     public float getControlRegionCheckboxWeight() {
-        return controlRegionCheckboxWeight;
+        return getRegionWeight(ItemEvent.CHECKBOX);
     }
 
     public void setControlRegionCheckboxWeight(float controlRegionCheckboxWeight) {
-        this.controlRegionCheckboxWeight = controlRegionCheckboxWeight;
-        invalidate();
+        setRegionWeight(ItemEvent.CHECKBOX, controlRegionCheckboxWeight);
     }
 
 
@@ -707,8 +1795,12 @@ public class ControlLayout extends ViewGroup {
     }
 
     public void setMargin(int margin){
+        if (this.margin == margin)
+            return;
+
         this.margin = margin;
-        invalidate();
+        //margin is a part of the strip height so body children are moved too
+        requestBodyLayout();
     }
 
 
@@ -716,6 +1808,7 @@ public class ControlLayout extends ViewGroup {
         void onCheckChanged(boolean checked);
     }
 
+    //events are recycled when the listener returns , ItemEvent.obtain(event) keeps a copy
     public interface OnItemLongPressedListener {
         void onItemLongPressed(ItemEvent event);
     }
@@ -725,165 +1818,37 @@ public class ControlLayout extends ViewGroup {
     }
 
 
-    //Recognize touch motions and respond to a specific motion
-    private static class OnTouchGestureListener implements GestureDetector.OnGestureListener {
-
-        private final ControlLayout controlLayout;
-        private final Paint highlight = new Paint(Paint.ANTI_ALIAS_FLAG);
-        private final ItemEvent itemEvent = new ItemEvent();
-
-        public OnTouchGestureListener(ControlLayout controlLayout) {
-
-            this.controlLayout = controlLayout;
-
-
-
-
-            int currentColor = controlLayout.paint.getColor();
-            int red = Color.red(currentColor);
-            int green = Color.green(currentColor);
-            int blue = Color.blue(currentColor);
-
-            red = red > 100 ? red - 50: red + 50;
-            green = green > 100 ? green -50 : green + 50;
-            blue = blue > 100 ? blue - 50 : blue + 50;
-
-            highlight.setStyle(controlLayout.getPaint().getStyle());
-            highlight.setColor(Color.argb(255 , red ,green ,blue));
-            highlight.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP , 1 , DISPLAY_METRICS));
-            highlight.setStrokeJoin(Paint.Join.BEVEL);
-        }
-
-        @Override
-        public boolean onDown(MotionEvent e) {
-
-            final float x = e.getX();
-            final float y = e.getY();
-
-
-            if (controlLayout.iconRegion.isPointInside(x, y) || controlLayout.textRegion.isPointInside(x, y)) {
-
-                if (controlLayout.iconRegion.isPointInside(x, y)) {
-                    itemEvent.item = ItemEvent.ICON;
-                    controlLayout.iconRegion.setPaint(highlight);
-                } else {
-                    itemEvent.item = ItemEvent.TEXT;
-                    controlLayout.textRegion.setPaint(highlight);
-                }
-
-                controlLayout.invalidate();
-
-                return true;
-            } else if (controlLayout.checkboxRegion.isPointInside(x, y)) {
-
-                controlLayout.checked = !controlLayout.checked;
-                controlLayout.checkboxRegion.setCheckIcon(controlLayout.checked ? controlLayout.checkedIconSource : controlLayout.uncheckedIconSource);
-
-                if (controlLayout.checkedChangeListener != null)
-                    controlLayout.checkedChangeListener.onCheckChanged(controlLayout.checked);
-
-                controlLayout.invalidate();
-                return true;
-            }
-
-
-            return false;
-        }
-
-        @Override
-        public void onShowPress(MotionEvent e) {
-        }
-
-        @Override
-        public boolean onSingleTapUp(MotionEvent e) {
-
-            if (!(itemEvent.getItem() == ItemEvent.NONE)) {
-
-                switch (itemEvent.getItem()) {
-                    case ItemEvent.ICON:
-                        controlLayout.iconRegion.setPaint(controlLayout.paint);
-                        break;
-                    case ItemEvent.TEXT:
-                        controlLayout.textRegion.setPaint(controlLayout.paint);
-                        break;
-                }
-
-                if (controlLayout.itemClickListener != null)
-                    controlLayout.itemClickListener.onItemClick(itemEvent);
+    /*
+        a region of the control strip , regions are laid out from start to end with a width
+        proportional to their weight , disabled regions are neither drawn nor touched
+     */
+    public static final class Region {
 
-                itemEvent.item = ItemEvent.NONE;
-                controlLayout.invalidate();
+        final AbstractDrawable drawable;
+        float weight;
+        boolean enabled = true;
 
-                return true;
-            }
-
-            return false;
+        Region(AbstractDrawable drawable, float weight) {
+            this.drawable = drawable;
+            this.weight = weight;
         }
 
-        @Override
-        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-
-            controlLayout.requestDisallowInterceptTouchEvent(false);
-
-
-            switch (itemEvent.getItem()) {
-                case ItemEvent.ICON:
-                    controlLayout.iconRegion.setPaint(controlLayout.paint);
-                    break;
-                case ItemEvent.TEXT:
-                    controlLayout.textRegion.setPaint(controlLayout.paint);
-                    break;
-                default:
-                    return false;
-            }
-
-            itemEvent.item = ItemEvent.NONE;
-            controlLayout.invalidate();
-
-            return true;
+        public AbstractDrawable getDrawable() {
+            return drawable;
         }
 
-        @Override
-        public void onLongPress(MotionEvent e) {
-
-
-            try {
-
-                switch (itemEvent.getItem()) {
-                    case ItemEvent.ICON:
-                        controlLayout.iconRegion.setPaint(controlLayout.paint);
-                        break;
-                    case ItemEvent.TEXT:
-                        controlLayout.textRegion.setPaint(controlLayout.paint);
-                        break;
-                }
-
-                if (controlLayout.itemLongPressedListener != null)
-                    controlLayout.itemLongPressedListener.onItemLongPressed(itemEvent);
-
-
-
-                itemEvent.item = ItemEvent.NONE;
-                Thread.sleep(300);
-
-                controlLayout.invalidate();
-
-            } catch (InterruptedException ie) {
-                ie.printStackTrace();
-            }
-
+        public float getWeight() {
+            return weight;
         }
 
-        @Override
-        public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
-            return false;
+        public boolean isEnabled() {
+            return enabled;
         }
     }
 
 
     public static class LayoutParams extends MarginLayoutParams {
 
-
         public LayoutParams(Context c, AttributeSet attrs) {
             super(c, attrs);
         }
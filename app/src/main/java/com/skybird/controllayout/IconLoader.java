@@ -0,0 +1,122 @@
+package com.skybird.controllayout;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/*
+    loads icons of ControlLayout.setIconAsync on a background executor and hands them
+    to the layout on the main thread, a cancelled request never reaches the layout
+ */
+public final class IconLoader {
+
+    private static final String TAG = "IconLoader";
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static Executor executor;
+
+    private IconLoader() {
+    }
+
+
+    //executor which decodes the icons , by default two background priority threads are used
+    public static synchronized void setExecutor(@NonNull Executor executor) {
+        IconLoader.executor = executor;
+    }
+
+    static synchronized Executor getExecutor() {
+        if (executor == null)
+            executor = createDefaultExecutor();
+
+        return executor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        return Executors.newFixedThreadPool(2, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "ControlLayout-IconLoader-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    static final class Request implements Runnable {
+
+        final IconSource source;
+
+        private final ControlLayout controlLayout;
+        private final Resources resources;
+        final int width, height;
+
+        private volatile boolean cancelled;
+
+        Request(ControlLayout controlLayout, IconSource source, int width, int height) {
+            this.controlLayout = controlLayout;
+            this.resources = controlLayout.getResources();
+            this.source = source;
+            this.width = width;
+            this.height = height;
+        }
+
+        void start() {
+            getExecutor().execute(this);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+
+            if (cancelled)
+                return;
+
+            Drawable icon = null;
+            try {
+                icon = source.load(resources, width, height);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "could not load icon", e);
+            }
+
+            if (cancelled || icon == null)
+                return;
+
+            final Drawable loaded = icon;
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled)
+                        controlLayout.onIconLoaded(Request.this, loaded);
+                }
+            });
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.skybird.controllayout;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.skybird.controllayout.drawable.IconCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/*
+    where an icon loaded by ControlLayout.setIconAsync comes from (resource , file or stream),
+    bitmaps are decoded with a sample size which keeps them at least as big as the icon region
+    and then scaled down to its exact size
+ */
+public abstract class IconSource {
+
+    public interface StreamProvider {
+        //open a new stream every time , it is read twice: for the size and for the pixels
+        InputStream open() throws IOException;
+    }
+
+
+    public static IconSource fromResource(@NonNull final Resources resources, @DrawableRes final int resId) {
+        return new IconSource() {
+            @Override
+            Drawable load(Resources res, int width, int height) {
+
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true;
+                BitmapFactory.decodeResource(resources, resId, options);
+
+                //not a bitmap (vector , shape , ...) so it is drawn at the size instead
+                if (options.outWidth <= 0 || options.outHeight <= 0)
+                    return IconCache.get(resources, resId, width, height, IconCache.NO_TINT);
+
+                prepare(options, width, height);
+                return toDrawable(res, BitmapFactory.decodeResource(resources, resId, options), width, height);
+            }
+        };
+    }
+
+    public static IconSource fromFile(@NonNull final File file) {
+        return new IconSource() {
+            @Override
+            Drawable load(Resources res, int width, int height) {
+
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true;
+                BitmapFactory.decodeFile(file.getPath(), options);
+
+                prepare(options, width, height);
+                return toDrawable(res, BitmapFactory.decodeFile(file.getPath(), options), width, height);
+            }
+        };
+    }
+
+    public static IconSource fromStream(@NonNull final StreamProvider provider) {
+        return new IconSource() {
+            @Override
+            Drawable load(Resources res, int width, int height) throws IOException {
+
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true;
+
+                try (InputStream stream = provider.open()) {
+                    BitmapFactory.decodeStream(stream, null, options);
+                }
+
+                prepare(options, width, height);
+
+                try (InputStream stream = provider.open()) {
+                    return toDrawable(res, BitmapFactory.decodeStream(stream, null, options), width, height);
+                }
+            }
+        };
+    }
+
+
+    //decode the icon for a region with the size , null if it can not be decoded
+    @WorkerThread
+    @Nullable
+    abstract Drawable load(Resources res, int width, int height) throws IOException;
+
+
+    //largest power of two sample size which keeps the bitmap at least width x height
+    static void prepare(BitmapFactory.Options options, int width, int height) {
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height)
+            sampleSize *= 2;
+
+        options.inSampleSize = sampleSize;
+        options.inJustDecodeBounds = false;
+    }
+
+    static Drawable toDrawable(Resources res, @Nullable Bitmap bitmap, int width, int height) {
+
+        if (bitmap == null)
+            return null;
+
+        if (bitmap.getWidth() > width || bitmap.getHeight() > height) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+            if (scaled != bitmap)
+                bitmap.recycle();
+            bitmap = scaled;
+        }
+
+        return new BitmapDrawable(res, bitmap);
+    }
+
+}
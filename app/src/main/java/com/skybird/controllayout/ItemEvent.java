@@ -1,15 +1,92 @@
 package com.skybird.controllayout;
 
+/*
+    touch on a region of the strip , events are taken from a small pool like MotionEvents.
+    an event is only valid while the listener it is given to runs , a listener which keeps it
+    (e.g. hands it to another thread) keeps a copy from obtain(event) and recycles it when done
+ */
 public class ItemEvent {
 
     public static final int NONE = -1;
     public static final int ICON= 0;
     public static final int TEXT = 1;
+    public static final int CHECKBOX = 2;
 
+    static final int MAX_POOL_SIZE = 10;
 
+    private static final Object POOL_LOCK = new Object();
+    private static ItemEvent pool;
+    private static int poolSize;
+
+    private ItemEvent next;
+    private boolean recycled;
+
+    //index of the region in the strip , ICON , TEXT and CHECKBOX are the first three regions
+    private int item = NONE;
     private float x , y;
-    public int item = NONE;
+    private long eventTime;
+    private boolean checked;
+
+    private ItemEvent() {
+    }
+
+    public static ItemEvent obtain(int item, float x, float y, long eventTime, boolean checked) {
+
+        ItemEvent event;
+
+        synchronized (POOL_LOCK) {
+            event = pool;
+            if (event != null) {
+                pool = event.next;
+                event.next = null;
+                poolSize--;
+            }
+        }
+
+        if (event == null)
+            event = new ItemEvent();
+
+        event.recycled = false;
+        event.item = item;
+        event.x = x;
+        event.y = y;
+        event.eventTime = eventTime;
+        event.checked = checked;
+        return event;
+    }
+
+    //copy of the event which can be kept after the listener returns
+    public static ItemEvent obtain(ItemEvent other) {
+        return obtain(other.item, other.x, other.y, other.eventTime, other.checked);
+    }
+
+    //give the event back to the pool , it must not be used anymore
+    public void recycle() {
+
+        if (recycled)
+            throw new IllegalStateException(this + " recycled twice!");
 
+        recycled = true;
+
+        synchronized (POOL_LOCK) {
+            if (poolSize < MAX_POOL_SIZE) {
+                next = pool;
+                pool = this;
+                poolSize++;
+            }
+        }
+    }
+
+    //events which are waiting in the pool
+    static int getPoolSize() {
+        synchronized (POOL_LOCK) {
+            return poolSize;
+        }
+    }
+
+    public int getItem() {
+        return item;
+    }
 
     public float getX() {
         return x;
@@ -19,7 +96,19 @@ public class ItemEvent {
         return y;
     }
 
-    public int getItem() {
-        return item;
+    //uptime of the touch in milliseconds , the same time base as MotionEvent.getEventTime()
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    //checked state of the ControlLayout when the event happened
+    public boolean isChecked() {
+        return checked;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemEvent{item=" + item + ", x=" + x + ", y=" + y + ", eventTime=" + eventTime
+                + ", checked=" + checked + "}";
     }
 }
@@ -0,0 +1,69 @@
+package com.skybird.controllayout;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+
+/*
+    listeners of one kind of event , the array is copied when a listener is added or removed
+    so events are dispatched over a snapshot without locking or allocating.
+    a listener with an executor gets its events on that executor instead of the ui thread
+ */
+final class ListenerRegistry<L> {
+
+    static final class Subscription<L> {
+
+        final L listener;
+        @Nullable
+        final Executor executor;
+
+        Subscription(L listener, @Nullable Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    private static final Subscription<?>[] EMPTY = new Subscription<?>[0];
+
+    private volatile Subscription<?>[] subscriptions = EMPTY;
+
+    //a listener which is added again is moved to the end with the new executor
+    synchronized void add(L listener, @Nullable Executor executor) {
+        remove(listener);
+
+        final Subscription<?>[] current = subscriptions;
+        final Subscription<?>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new Subscription<>(listener, executor);
+        subscriptions = updated;
+    }
+
+    synchronized boolean remove(L listener) {
+
+        final Subscription<?>[] current = subscriptions;
+
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].listener == listener) {
+
+                final Subscription<?>[] updated = new Subscription<?>[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated.length == 0 ? EMPTY : updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return subscriptions.length == 0;
+    }
+
+    //snapshot to dispatch over , it is never changed
+    @SuppressWarnings("unchecked")
+    Subscription<L>[] snapshot() {
+        return (Subscription<L>[]) subscriptions;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.skybird.controllayout;
+
+import android.view.Choreographer;
+
+import com.skybird.controllayout.drawable.AbstractDrawable;
+import com.skybird.controllayout.drawable.RegionPalette;
+
+
+/*
+    highlight of the pressed region , the region is drawn with the pressed paint of its palette while
+    it is pressed and steps back through the fade states of the palette on frame callbacks when the
+    press ends, so the ui thread is never blocked and no paint is changed. a cancelled press drops
+    the highlight at once
+ */
+final class PressFeedback implements Choreographer.FrameCallback {
+
+    static final long FADE_DURATION_MS = 300;
+
+    private final ControlLayout host;
+
+    private AbstractDrawable region;
+    private int regionState;
+
+    private long fadeStartNanos = -1;
+    private boolean fading;
+
+    PressFeedback(ControlLayout host) {
+        this.host = host;
+    }
+
+    void press(AbstractDrawable region) {
+
+        cancel();
+
+        this.region = region;
+        regionState = region.getPaletteState();
+
+        region.setPaletteState(RegionPalette.STATE_PRESSED);
+        host.invalidateRegion(region);
+    }
+
+    //fade the highlight out , the region is back to its own state when the fade ends
+    void release() {
+
+        if (region == null || fading)
+            return;
+
+        fading = true;
+        fadeStartNanos = -1;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    //drop the highlight without a fade , e.g. the touch is cancelled or turned into a scroll
+    void cancel() {
+
+        if (region == null)
+            return;
+
+        if (fading)
+            Choreographer.getInstance().removeFrameCallback(this);
+
+        end();
+    }
+
+    //the region is drawn highlighted , pressed or fading
+    boolean isHighlighting(AbstractDrawable region) {
+        return this.region == region;
+    }
+
+    //state the region goes back to when the highlight ends , e.g. it is disabled meanwhile
+    void setRegionState(AbstractDrawable region, int state) {
+        if (this.region == region)
+            regionState = state;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+
+        if (region == null)
+            return;
+
+        if (fadeStartNanos < 0)
+            fadeStartNanos = frameTimeNanos;
+
+        final float fraction = (frameTimeNanos - fadeStartNanos) / (FADE_DURATION_MS * 1000000f);
+
+        if (fraction >= 1) {
+            end();
+            return;
+        }
+
+        final int state = RegionPalette.fadeState(fraction);
+        if (state != region.getPaletteState()) {
+            region.setPaletteState(state);
+            host.invalidateRegion(region);
+        }
+
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void end() {
+
+        final AbstractDrawable region = this.region;
+
+        region.setPaletteState(regionState);
+
+        this.region = null;
+        fading = false;
+
+        host.invalidateRegion(region);
+    }
+
+}
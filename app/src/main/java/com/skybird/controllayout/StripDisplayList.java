@@ -0,0 +1,106 @@
+package com.skybird.controllayout;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+
+/*
+    recording of the control strip drawing commands which is replayed until the strip is changed,
+    a RenderNode is used on hardware canvases from api 29 and a Picture on software canvases.
+    on older hardware canvases the view's own display list already keeps the strip
+    when only a body child is redrawn , so the strip is drawn directly there
+ */
+final class StripDisplayList {
+
+    interface StripDrawer {
+        void drawStrip(Canvas canvas);
+    }
+
+    private final StripDrawer drawer;
+
+    private RenderNode renderNode;
+    private boolean renderNodeDirty = true;
+
+    private Picture picture;
+    private boolean pictureDirty = true;
+
+    private int width, height;
+
+    StripDisplayList(StripDrawer drawer) {
+        this.drawer = drawer;
+    }
+
+    //something which is drawn in the strip is changed so it will be recorded again
+    void invalidate() {
+        renderNodeDirty = true;
+        pictureDirty = true;
+    }
+
+    void draw(Canvas canvas, int width, int height) {
+
+        if (width <= 0 || height <= 0)
+            return;
+
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            invalidate();
+        }
+
+        if (canvas.isHardwareAccelerated()) {
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+                drawRenderNode(canvas);
+            else
+                drawer.drawStrip(canvas);
+
+        } else {
+            drawPicture(canvas);
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private void drawRenderNode(Canvas canvas) {
+
+        if (renderNode == null)
+            renderNode = new RenderNode("ControlLayoutStrip");
+
+        if (renderNodeDirty || !renderNode.hasDisplayList()) {
+            renderNode.setPosition(0, 0, width, height);
+
+            RecordingCanvas recordingCanvas = renderNode.beginRecording(width, height);
+            try {
+                drawer.drawStrip(recordingCanvas);
+            } finally {
+                renderNode.endRecording();
+            }
+            renderNodeDirty = false;
+        }
+
+        canvas.drawRenderNode(renderNode);
+    }
+
+    private void drawPicture(Canvas canvas) {
+
+        if (picture == null)
+            picture = new Picture();
+
+        if (pictureDirty) {
+            Canvas recordingCanvas = picture.beginRecording(width, height);
+            try {
+                drawer.drawStrip(recordingCanvas);
+            } finally {
+                picture.endRecording();
+            }
+            pictureDirty = false;
+        }
+
+        canvas.drawPicture(picture);
+    }
+
+}
@@ -1,23 +1,42 @@
 package com.skybird.controllayout.drawable;
 
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.TypedValue;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-public abstract class AbstractDrawable extends Drawable {
+/*
+    regions are the callback of the drawables they draw (icons) and forward their invalidations and
+    scheduled frames to their own callback (the host view) as if they came from the region
+ */
+public abstract class AbstractDrawable extends Drawable implements Drawable.Callback {
 
     static final float DEFAULT_STROKE_WIDTH = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP , 1
             , Resources.getSystem().getDisplayMetrics());
 
     private Paint paint = new Paint();
 
+    /*
+        the frame is drawn with the paint of the current state from the palette of the paint,
+        the palette is taken again only when the paint looks different (e.g. its color is changed)
+     */
+    private RegionPalette palette;
+    private int paletteState = RegionPalette.STATE_NORMAL;
+
     private boolean drawFrame;
+    private boolean frameAtlasEnabled;
+
+    private final Rect dirtyBounds = new Rect();
 
     @Override
     public void setAlpha(int alpha) {
@@ -44,6 +63,26 @@ public abstract class AbstractDrawable extends Drawable {
         this.paint = paint;
     }
 
+    public RegionPalette getPalette() {
+        if (palette == null || !palette.matches(paint))
+            palette = RegionPalette.obtain(paint);
+        return palette;
+    }
+
+    public int getPaletteState() {
+        return paletteState;
+    }
+
+    //one of the RegionPalette states , the frame is redrawn with another paint of the palette
+    public void setPaletteState(int paletteState) {
+        this.paletteState = paletteState;
+    }
+
+    //paint the frame is drawn with
+    Paint getStatePaint() {
+        return getPalette().getPaint(paletteState);
+    }
+
     public void setDrawFrame(boolean drawFrame) {
         this.drawFrame = drawFrame;
     }
@@ -52,6 +91,87 @@ public abstract class AbstractDrawable extends Drawable {
         return drawFrame;
     }
 
+    //draw the frame from a bitmap shared through the FrameAtlas instead of rasterizing it on every draw
+    public void setFrameAtlasEnabled(boolean frameAtlasEnabled) {
+        this.frameAtlasEnabled = frameAtlasEnabled;
+    }
+
+    public boolean isFrameAtlasEnabled() {
+        return frameAtlasEnabled;
+    }
+
+    /*
+        pressed and fading frames are drawn directly , they are short lived and each fade step
+        would take a bitmap in the atlas and push out the frames which are drawn all the time
+     */
+    boolean drawsFrameFromAtlas() {
+        return frameAtlasEnabled && paletteState < RegionPalette.STATE_PRESSED;
+    }
+
+    void drawRoundRectFrame(Canvas canvas, RectF frameBounds, float cornerRadius) {
+
+        final Paint paint = getStatePaint();
+
+        if (drawsFrameFromAtlas()) {
+            Bitmap frame = FrameAtlas.getRoundRectFrame(getWidth(), getHeight(), cornerRadius, paint);
+
+            if (frame != null) {
+                final int outset = FrameAtlas.outset(paint);
+                canvas.drawBitmap(frame, getBounds().left - outset, getBounds().top - outset, null);
+                return;
+            }
+        }
+
+        canvas.drawRoundRect(frameBounds, cornerRadius, cornerRadius, paint);
+    }
+
+    //lay out what the next draw needs so getDirtyBounds() covers it , e.g. a text which is going to overflow
+    public void prepareDraw() {
+    }
+
+    //bounds which are drawn on, frame stroke is drawn half outside of the bounds
+    @Override
+    public Rect getDirtyBounds() {
+        dirtyBounds.set(getBounds());
+        outsetByStroke(dirtyBounds);
+        return dirtyBounds;
+    }
+
+    void outsetByStroke(Rect rect) {
+        final int outset = (int) Math.ceil(getPaint().getStrokeWidth() / 2) + 1 /*anti alias*/;
+        rect.inset(-outset, -outset);
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        unscheduleSelf(what);
+    }
+
+    //the new drawable calls back this region instead of the old one
+    void replaceCallback(@Nullable Drawable old, @Nullable Drawable drawable) {
+
+        if (old == drawable)
+            return;
+
+        if (old != null && old.getCallback() == this)
+            old.setCallback(null);
+
+        if (drawable != null) {
+            drawable.setCallback(this);
+            drawable.setVisible(isVisible(), false);
+        }
+    }
+
     public abstract boolean isPointInside(float x , float y);
 
     public boolean isPointInside(PointF point){
@@ -0,0 +1,80 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+
+
+/*
+    small pool of mutable bitmaps which are no longer drawn, a bitmap is reused for another
+    size if its allocation is big enough so regions which are resized don't allocate again
+ */
+public final class BitmapPool {
+
+    private static final int MAX_BITMAPS = 6;
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+
+    private static final ArrayList<Bitmap> BITMAPS = new ArrayList<>(MAX_BITMAPS);
+    private static int bytes;
+
+    private BitmapPool() {
+    }
+
+
+    //cleared ARGB_8888 bitmap with the size , reused from the pool if possible
+    public static Bitmap obtain(int width, int height) {
+
+        final int required = width * height * 4;
+
+        synchronized (BITMAPS) {
+            for (int i = 0; i < BITMAPS.size(); i++) {
+                Bitmap bitmap = BITMAPS.get(i);
+
+                if (bitmap.getAllocationByteCount() >= required) {
+                    BITMAPS.remove(i);
+                    bytes -= bitmap.getAllocationByteCount();
+
+                    if (bitmap.getWidth() != width || bitmap.getHeight() != height
+                            || bitmap.getConfig() != Bitmap.Config.ARGB_8888)
+                        bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+
+                    bitmap.eraseColor(Color.TRANSPARENT);
+                    return bitmap;
+                }
+            }
+        }
+
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    //give back a bitmap which is not drawn anymore , it is recycled if the pool is full
+    public static void release(Bitmap bitmap) {
+
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable())
+            return;
+
+        synchronized (BITMAPS) {
+            final int size = bitmap.getAllocationByteCount();
+
+            if (BITMAPS.size() < MAX_BITMAPS && bytes + size <= MAX_BYTES) {
+                BITMAPS.add(bitmap);
+                bytes += size;
+                return;
+            }
+        }
+
+        bitmap.recycle();
+    }
+
+    public static void clear() {
+        synchronized (BITMAPS) {
+            for (Bitmap bitmap : BITMAPS)
+                bitmap.recycle();
+
+            BITMAPS.clear();
+            bytes = 0;
+        }
+    }
+
+}
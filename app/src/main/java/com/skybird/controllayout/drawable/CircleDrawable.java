@@ -1,8 +1,10 @@
 package com.skybird.controllayout.drawable;
 
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.util.TypedValue;
 
 
@@ -13,6 +15,8 @@ public class CircleDrawable extends AbstractDrawable {
     float centerX, centerY;
     float radius;
 
+    private final Rect circleBounds = new Rect();
+
 
     public CircleDrawable(float radius, float centerX, float centerY) {
         this.radius = radius;
@@ -62,10 +66,40 @@ public class CircleDrawable extends AbstractDrawable {
     }
 
 
+    //the circle is the largest one which fits centered in the bounds
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+
+        radius = Math.min(bounds.width() / 2, bounds.height() / 2);
+        centerX = bounds.left + bounds.width() / 2;
+        centerY = bounds.top + bounds.height() / 2;
+    }
+
     @Override
     public void draw(Canvas canvas) {
 
-        canvas.drawCircle(centerX, centerY, radius, getPaint());
+        final Paint paint = getStatePaint();
+
+        if (drawsFrameFromAtlas()) {
+            Bitmap frame = FrameAtlas.getCircleFrame(radius, paint);
+
+            if (frame != null) {
+                final int outset = FrameAtlas.outset(paint);
+                canvas.drawBitmap(frame, centerX - radius - outset, centerY - radius - outset, null);
+                return;
+            }
+        }
+
+        canvas.drawCircle(centerX, centerY, radius, paint);
+    }
+
+    @Override
+    public Rect getDirtyBounds() {
+        circleBounds.set((int) Math.floor(centerX - radius), (int) Math.floor(centerY - radius),
+                (int) Math.ceil(centerX + radius), (int) Math.ceil(centerY + radius));
+        outsetByStroke(circleBounds);
+        return circleBounds;
     }
 
     @Override
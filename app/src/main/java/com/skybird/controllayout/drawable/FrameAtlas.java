@@ -0,0 +1,203 @@
+package com.skybird.controllayout.drawable;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+
+/*
+    process wide cache of rasterized region frames, every distinct frame
+    (shape , size , corner radius and everything of the paint which changes the frame) is drawn once into a bitmap
+    and the regions which use the atlas draw that bitmap instead of an anti aliased round rect or circle.
+    it is opt in (AbstractDrawable.setFrameAtlasEnabled) and it is trimmed on memory pressure
+ */
+public final class FrameAtlas {
+
+    public static final int DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+
+    private static final int SHAPE_ROUND_RECT = 0;
+    private static final int SHAPE_CIRCLE = 1;
+
+    private static final LruCache<Key, Bitmap> FRAMES = new LruCache<Key, Bitmap>(DEFAULT_MAX_BYTES) {
+        @Override
+        protected int sizeOf(@NonNull Key key, @NonNull Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private static final Key PROBE = new Key();
+    private static final RectF FRAME_BOUNDS = new RectF();
+
+    private static boolean registered;
+
+    private FrameAtlas() {
+    }
+
+
+    //evict frames when the system is low on memory , the application context is used
+    public static synchronized void registerMemoryCallbacks(@NonNull Context context) {
+        if (registered)
+            return;
+
+        registered = true;
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                FrameAtlas.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                evictAll();
+            }
+        });
+    }
+
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            FRAMES.trimToSize(FRAMES.maxSize() / 2);
+        }
+    }
+
+    public static void setMaxBytes(int maxBytes) {
+        FRAMES.resize(maxBytes);
+    }
+
+    public static int getMaxBytes() {
+        return FRAMES.maxSize();
+    }
+
+    public static int getBytes() {
+        return FRAMES.size();
+    }
+
+    public static int hitCount() {
+        return FRAMES.hitCount();
+    }
+
+    public static int missCount() {
+        return FRAMES.missCount();
+    }
+
+    public static void evictAll() {
+        FRAMES.evictAll();
+    }
+
+    //how much a frame bitmap is bigger than the bounds on each side , the stroke is drawn half outside
+    public static int outset(Paint paint) {
+        return (int) Math.ceil(paint.getStrokeWidth() / 2) + 1;
+    }
+
+    //frame of a round rect with the size , null if it is too big to be kept in the atlas
+    @Nullable
+    public static Bitmap getRoundRectFrame(int width, int height, float cornerRadius, Paint paint) {
+        return getFrame(SHAPE_ROUND_RECT, width, height, cornerRadius, paint);
+    }
+
+    //frame of a circle with the radius , null if it is too big to be kept in the atlas
+    @Nullable
+    public static Bitmap getCircleFrame(float radius, Paint paint) {
+        final int diameter = (int) Math.ceil(radius * 2);
+        return getFrame(SHAPE_CIRCLE, diameter, diameter, radius, paint);
+    }
+
+    private static synchronized Bitmap getFrame(int shape, int width, int height, float radius, Paint paint) {
+
+        if (width <= 0 || height <= 0)
+            return null;
+
+        PROBE.set(shape, width, height, radius, paint);
+
+        Bitmap frame = FRAMES.get(PROBE);
+        if (frame != null)
+            return frame;
+
+        final int outset = outset(paint);
+        final int frameWidth = width + outset * 2;
+        final int frameHeight = height + outset * 2;
+
+        //a frame which takes a big part of the atlas would evict all of the others
+        if ((long) frameWidth * frameHeight * 4 > FRAMES.maxSize() / 8)
+            return null;
+
+        frame = Bitmap.createBitmap(frameWidth, frameHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(frame);
+
+        if (shape == SHAPE_CIRCLE) {
+            canvas.drawCircle(outset + radius, outset + radius, radius, paint);
+        } else {
+            FRAME_BOUNDS.set(outset, outset, outset + width, outset + height);
+            canvas.drawRoundRect(FRAME_BOUNDS, radius, radius, paint);
+        }
+
+        FRAMES.put(PROBE.copy(), frame);
+        return frame;
+    }
+
+
+    private static final class Key {
+
+        private int shape;
+        private int width, height;
+        private float radius;
+        private final FramePaintKey paint = new FramePaintKey();
+
+        void set(int shape, int width, int height, float radius, Paint paint) {
+            this.shape = shape;
+            this.width = width;
+            this.height = height;
+            this.radius = radius;
+            this.paint.set(paint);
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.shape = shape;
+            key.width = width;
+            key.height = height;
+            key.radius = radius;
+            key.paint.set(paint);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return shape == key.shape
+                    && width == key.width
+                    && height == key.height
+                    && radius == key.radius
+                    && paint.equals(key.paint);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shape;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(radius);
+            result = 31 * result + paint.hashCode();
+            return result;
+        }
+    }
+
+}
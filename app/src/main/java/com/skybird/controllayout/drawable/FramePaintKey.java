@@ -0,0 +1,114 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.ColorFilter;
+import android.graphics.MaskFilter;
+import android.graphics.Paint;
+import android.graphics.PathEffect;
+import android.graphics.Shader;
+import android.graphics.Xfermode;
+
+
+/*
+    every property of a Paint which changes how a frame is drawn , so palettes and atlas frames
+    are shared only between paints which draw the same. effects (path effect , shader , ...)
+    are compared by identity
+ */
+final class FramePaintKey {
+
+    private Paint.Style style;
+    private int color;
+    private float strokeWidth;
+    private float strokeMiter;
+    private Paint.Cap strokeCap;
+    private Paint.Join strokeJoin;
+    //anti alias , dither , filter bitmap , ...
+    private int flags;
+    private PathEffect pathEffect;
+    private Shader shader;
+    private ColorFilter colorFilter;
+    private Xfermode xfermode;
+    private MaskFilter maskFilter;
+
+    void set(Paint paint) {
+        style = paint.getStyle();
+        color = paint.getColor();
+        strokeWidth = paint.getStrokeWidth();
+        strokeMiter = paint.getStrokeMiter();
+        strokeCap = paint.getStrokeCap();
+        strokeJoin = paint.getStrokeJoin();
+        flags = paint.getFlags();
+        pathEffect = paint.getPathEffect();
+        shader = paint.getShader();
+        colorFilter = paint.getColorFilter();
+        xfermode = paint.getXfermode();
+        maskFilter = paint.getMaskFilter();
+    }
+
+    void set(FramePaintKey key) {
+        style = key.style;
+        color = key.color;
+        strokeWidth = key.strokeWidth;
+        strokeMiter = key.strokeMiter;
+        strokeCap = key.strokeCap;
+        strokeJoin = key.strokeJoin;
+        flags = key.flags;
+        pathEffect = key.pathEffect;
+        shader = key.shader;
+        colorFilter = key.colorFilter;
+        xfermode = key.xfermode;
+        maskFilter = key.maskFilter;
+    }
+
+    //the paint draws like the one the key was set from
+    boolean matches(Paint paint) {
+        return style == paint.getStyle()
+                && color == paint.getColor()
+                && strokeWidth == paint.getStrokeWidth()
+                && strokeMiter == paint.getStrokeMiter()
+                && strokeCap == paint.getStrokeCap()
+                && strokeJoin == paint.getStrokeJoin()
+                && flags == paint.getFlags()
+                && pathEffect == paint.getPathEffect()
+                && shader == paint.getShader()
+                && colorFilter == paint.getColorFilter()
+                && xfermode == paint.getXfermode()
+                && maskFilter == paint.getMaskFilter();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FramePaintKey)) return false;
+
+        FramePaintKey key = (FramePaintKey) o;
+        return style == key.style
+                && color == key.color
+                && strokeWidth == key.strokeWidth
+                && strokeMiter == key.strokeMiter
+                && strokeCap == key.strokeCap
+                && strokeJoin == key.strokeJoin
+                && flags == key.flags
+                && pathEffect == key.pathEffect
+                && shader == key.shader
+                && colorFilter == key.colorFilter
+                && xfermode == key.xfermode
+                && maskFilter == key.maskFilter;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = style != null ? style.hashCode() : 0;
+        result = 31 * result + color;
+        result = 31 * result + Float.floatToIntBits(strokeWidth);
+        result = 31 * result + Float.floatToIntBits(strokeMiter);
+        result = 31 * result + (strokeCap != null ? strokeCap.hashCode() : 0);
+        result = 31 * result + (strokeJoin != null ? strokeJoin.hashCode() : 0);
+        result = 31 * result + flags;
+        result = 31 * result + System.identityHashCode(pathEffect);
+        result = 31 * result + System.identityHashCode(shader);
+        result = 31 * result + System.identityHashCode(colorFilter);
+        result = 31 * result + System.identityHashCode(xfermode);
+        result = 31 * result + System.identityHashCode(maskFilter);
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package com.skybird.controllayout.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+import androidx.core.content.res.ResourcesCompat;
+
+
+/*
+    process wide cache of icons rasterized at the size they are drawn,
+    keyed by (resource id , size , density , tint). every caller gets its own BitmapDrawable
+    which can be mutated freely while the bitmap behind it is shared and never changed
+ */
+public final class IconCache {
+
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    //no tint is applied to the icon
+    public static final int NO_TINT = 0;
+
+    private static final LruCache<Key, Bitmap> ICONS = new LruCache<Key, Bitmap>(DEFAULT_MAX_BYTES) {
+        @Override
+        protected int sizeOf(@NonNull Key key, @NonNull Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private static final Key PROBE = new Key();
+
+    private IconCache() {
+    }
+
+
+    public static void setMaxBytes(int maxBytes) {
+        ICONS.resize(maxBytes);
+    }
+
+    public static int getMaxBytes() {
+        return ICONS.maxSize();
+    }
+
+    //bytes held by the cached bitmaps
+    public static int getBytes() {
+        return ICONS.size();
+    }
+
+    public static int hitCount() {
+        return ICONS.hitCount();
+    }
+
+    public static int missCount() {
+        return ICONS.missCount();
+    }
+
+    public static void evictAll() {
+        ICONS.evictAll();
+    }
+
+
+    /*
+        drawable of the resource with the size , the bitmap is decoded and drawn only once
+        for all of the callers. animated drawables are not rasterized , a new one is returned every time
+     */
+    @Nullable
+    public static Drawable get(@NonNull Resources resources, @DrawableRes int resId, int width, int height,
+                               int tint) {
+
+        if (resId == 0 || width <= 0 || height <= 0)
+            return null;
+
+        Bitmap icon;
+        synchronized (IconCache.class) {
+            PROBE.set(resId, width, height, resources.getDisplayMetrics().densityDpi, tint);
+            icon = ICONS.get(PROBE);
+        }
+
+        if (icon == null) {
+
+            Drawable drawable = ResourcesCompat.getDrawable(resources, resId, null);
+            if (drawable == null)
+                return null;
+
+            if (tint != NO_TINT) {
+                drawable = drawable.mutate();
+                drawable.setColorFilter(new PorterDuffColorFilter(tint, PorterDuff.Mode.SRC_IN));
+            }
+
+            if (drawable instanceof Animatable)
+                return drawable;
+
+            icon = rasterize(drawable, width, height);
+
+            synchronized (IconCache.class) {
+                PROBE.set(resId, width, height, resources.getDisplayMetrics().densityDpi, tint);
+                ICONS.put(PROBE.copy(), icon);
+            }
+        }
+
+        return new BitmapDrawable(resources, icon);
+    }
+
+    static Bitmap rasterize(Drawable drawable, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+
+    private static final class Key {
+
+        private int resId;
+        private int width, height;
+        private int densityDpi;
+        private int tint;
+
+        void set(int resId, int width, int height, int densityDpi, int tint) {
+            this.resId = resId;
+            this.width = width;
+            this.height = height;
+            this.densityDpi = densityDpi;
+            this.tint = tint;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(resId, width, height, densityDpi, tint);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return resId == key.resId
+                    && width == key.width
+                    && height == key.height
+                    && densityDpi == key.densityDpi
+                    && tint == key.tint;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resId;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + densityDpi;
+            result = 31 * result + tint;
+            return result;
+        }
+    }
+
+}
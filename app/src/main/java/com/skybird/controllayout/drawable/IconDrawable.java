@@ -1,7 +1,6 @@
 package com.skybird.controllayout.drawable;
 
 import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
@@ -12,7 +11,6 @@ public class IconDrawable extends AbstractDrawable {
 
     private final RectF frameBounds = new RectF();
     private Drawable icon;
-    private Paint paint = new Paint();
 
     private float strokeRadius;
 
@@ -30,7 +28,7 @@ public class IconDrawable extends AbstractDrawable {
 
         if (isFrameDrawn()) {
             frameBounds.set(getBounds());
-            canvas.drawRoundRect(frameBounds, strokeRadius, strokeRadius, paint);
+            drawRoundRectFrame(canvas, frameBounds, strokeRadius);
         }
         if (icon != null) {
             /*
@@ -53,18 +51,26 @@ public class IconDrawable extends AbstractDrawable {
         return x > getBounds().left && x < getBounds().right && y > getBounds().top && y <getBounds().bottom;
     }
 
-    public void setPaint(Paint paint) {
-        this.paint = paint;
-    }
-
     public Drawable getIcon() {
         return icon;
     }
 
     public void setIcon(Drawable icon) {
+        replaceCallback(this.icon, icon);
         this.icon = icon;
     }
 
+    //animated icons stop while the region is not visible
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = super.setVisible(visible, restart);
+
+        if (icon != null)
+            icon.setVisible(visible, restart);
+
+        return changed;
+    }
+
 
     public void setStrokeRadius(float strokeRadius){
          this.strokeRadius = strokeRadius;
@@ -0,0 +1,111 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.TextPaint;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Objects;
+
+
+/*
+    text layout measured ahead of time , possibly on a worker thread ,
+    and handed to TextDrawable.setPrecomputedText(PrecomputedTextLayout) on the main thread.
+    it is tied to the Params and width it was created with , if they do not match
+    the drawable at draw time the text is measured again so metrics are never stale
+ */
+public final class PrecomputedTextLayout {
+
+    private final Params params;
+    final TextLayout layout;
+
+    private PrecomputedTextLayout(Params params, TextLayout layout) {
+        this.params = params;
+        this.layout = layout;
+    }
+
+    //measure the text for the width , safe to call from any thread
+    @NonNull
+    public static PrecomputedTextLayout create(@NonNull String text, @NonNull Params params, int width) {
+
+        TextLayoutCache.Key key = new TextLayoutCache.Key();
+        key.set(text, width, params);
+
+        TextPaint paint = new TextPaint();
+        params.applyTo(paint);
+
+        TextLayout layout = TextLayoutCache.obtain(key, paint, new Rect());
+
+        return new PrecomputedTextLayout(params, layout);
+    }
+
+    public String getText() {
+        return layout.key.text;
+    }
+
+    public int getWidth() {
+        return layout.key.width;
+    }
+
+    public Params getParams() {
+        return params;
+    }
+
+
+    //snapshot of the TextPaint properties which affect measuring , take it on the main thread
+    public static final class Params {
+
+        final float textSize;
+        final float textScaleX;
+        final Typeface typeface;
+        final int flags;
+        final float letterSpacing;
+        final Locale textLocale;
+        final String fontFeatureSettings;
+
+        public Params(@NonNull TextPaint paint) {
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            typeface = paint.getTypeface();
+            flags = paint.getFlags();
+            letterSpacing = letterSpacing(paint);
+            textLocale = paint.getTextLocale();
+            fontFeatureSettings = fontFeatureSettings(paint);
+        }
+
+        public boolean matches(@NonNull TextPaint paint) {
+            return textSize == paint.getTextSize()
+                    && textScaleX == paint.getTextScaleX()
+                    && typeface == paint.getTypeface()
+                    && flags == paint.getFlags()
+                    && letterSpacing == letterSpacing(paint)
+                    && textLocale.equals(paint.getTextLocale())
+                    && Objects.equals(fontFeatureSettings, fontFeatureSettings(paint));
+        }
+
+        void applyTo(TextPaint paint) {
+            paint.setFlags(flags);
+            paint.setTextSize(textSize);
+            paint.setTextScaleX(textScaleX);
+            paint.setTypeface(typeface);
+            paint.setTextLocale(textLocale);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                paint.setLetterSpacing(letterSpacing);
+                paint.setFontFeatureSettings(fontFeatureSettings);
+            }
+        }
+
+        //letter spacing and font features can only be set since lollipop
+        static float letterSpacing(TextPaint paint) {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? paint.getLetterSpacing() : 0;
+        }
+
+        static String fontFeatureSettings(TextPaint paint) {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? paint.getFontFeatureSettings() : null;
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import androidx.annotation.NonNull;
+import androidx.collection.LruCache;
+import androidx.core.graphics.ColorUtils;
+
+
+/*
+    frame paints of a region for each of its states , derived once from the paint of the region
+    and shared by every region whose paint draws the same (FramePaintKey). the paints are
+    never changed so a region changes state by drawing with another index of the palette.
+    a pressed region fades back through the fade states which lie between pressed and normal
+ */
+public final class RegionPalette {
+
+    public static final int STATE_NORMAL = 0;
+    public static final int STATE_CHECKED = 1;
+    public static final int STATE_DISABLED = 2;
+    public static final int STATE_PRESSED = 3;
+
+    //fade states from pressed (the first of them) towards normal
+    public static final int FADE_STEPS = 8;
+
+    private static final float DISABLED_ALPHA = 0.38f;
+
+    private static final LruCache<FramePaintKey, RegionPalette> PALETTES = new LruCache<>(32);
+    private static final FramePaintKey PROBE = new FramePaintKey();
+
+    private final FramePaintKey key;
+    private final Paint[] paints = new Paint[STATE_PRESSED + FADE_STEPS];
+
+    private RegionPalette(FramePaintKey key, Paint paint) {
+        this.key = key;
+
+        final int color = paint.getColor();
+        final int pressedColor = pressedColor(color);
+
+        paints[STATE_NORMAL] = derive(paint, color);
+        //the checked frame is drawn like the normal one
+        paints[STATE_CHECKED] = paints[STATE_NORMAL];
+        paints[STATE_DISABLED] = derive(paint, ColorUtils.setAlphaComponent(color,
+                (int) (Color.alpha(color) * DISABLED_ALPHA)));
+
+        for (int i = 0; i < FADE_STEPS; i++)
+            paints[STATE_PRESSED + i] = derive(paint, ColorUtils.blendARGB(pressedColor, color,
+                    (float) i / FADE_STEPS));
+    }
+
+    //shared palette of the paint , made once for each distinct paint
+    public static RegionPalette obtain(@NonNull Paint paint) {
+
+        RegionPalette palette;
+        synchronized (PALETTES) {
+            PROBE.set(paint);
+            palette = PALETTES.get(PROBE);
+
+            if (palette == null) {
+                FramePaintKey key = new FramePaintKey();
+                key.set(PROBE);
+                palette = new RegionPalette(key, paint);
+                PALETTES.put(key, palette);
+            }
+        }
+        return palette;
+    }
+
+    //fade state of a pressed region which is released for the fraction (0 to 1) of the fade
+    public static int fadeState(float fraction) {
+        return STATE_PRESSED + Math.min(FADE_STEPS - 1, (int) (fraction * FADE_STEPS));
+    }
+
+    public Paint getPaint(int state) {
+        return paints[state];
+    }
+
+    //the palette was derived from a paint which draws like this one
+    public boolean matches(Paint paint) {
+        return key.matches(paint);
+    }
+
+    private static Paint derive(Paint paint, int color) {
+        Paint derived = new Paint(paint);
+        derived.setColor(color);
+        return derived;
+    }
+
+    //frame color moved towards the middle so it is visible on light and dark frames
+    static int pressedColor(int color) {
+
+        int red = Color.red(color);
+        int green = Color.green(color);
+        int blue = Color.blue(color);
+
+        red = red > 100 ? red - 50 : red + 50;
+        green = green > 100 ? green - 50 : green + 50;
+        blue = blue > 100 ? blue - 50 : blue + 50;
+
+        return Color.argb(255, red, green, blue);
+    }
+
+}
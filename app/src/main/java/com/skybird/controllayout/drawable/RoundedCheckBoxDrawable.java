@@ -1,12 +1,57 @@
 package com.skybird.controllayout.drawable;
 
+import android.content.res.ColorStateList;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
+
+import androidx.core.graphics.drawable.DrawableCompat;
 
 public class RoundedCheckBoxDrawable extends CircleDrawable {
 
 
-    private Drawable checkIcon;
+    private Drawable checkedIcon;
+    private Drawable uncheckedIcon;
+    private boolean checked;
+
+    /*
+        both states are rasterized once at the size of the circle and density, so a toggle only
+        draws another bitmap instead of rendering the icon (vectors from their path data) again.
+        animated icons are drawn directly , bitmaps which already have the size are not copied
+     */
+    private Bitmap checkedRaster;
+    private Bitmap uncheckedRaster;
+    private boolean checkedRasterOwned, uncheckedRasterOwned;
+    private int rasterSize = -1;
+    private int rasterDensity = -1;
+    private int targetDensity;
+    private boolean rasterizing;
+    private final Rect rasterBounds = new Rect();
+
+    /*
+        with a tint one icon is drawn for every state in the color of the state , only the color filter
+        is switched so a single icon and raster are kept. filters are shared by all the drawables
+        which draw with the same color
+     */
+    private ColorStateList checkIconTint;
+    private PorterDuffColorFilter tintFilter;
+    private boolean pressed;
+    private final Paint rasterPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private static final int[] STATE_NONE = {};
+    private static final int[] STATE_CHECKED = {android.R.attr.state_checked};
+    private static final int[] STATE_PRESSED = {android.R.attr.state_pressed};
+    private static final int[] STATE_CHECKED_PRESSED = {android.R.attr.state_checked, android.R.attr.state_pressed};
+
+    private static final int MAX_TINT_FILTERS = 32;
+    private static final SparseArray<PorterDuffColorFilter> TINT_FILTERS = new SparseArray<>();
 
 
     public RoundedCheckBoxDrawable() {
@@ -28,6 +73,8 @@ public class RoundedCheckBoxDrawable extends CircleDrawable {
             super.draw(canvas);
         }
 
+        final Drawable checkIcon = getCheckIcon();
+
         if (checkIcon != null) {
 
             int left = (int) (centerX - radius);
@@ -35,17 +82,243 @@ public class RoundedCheckBoxDrawable extends CircleDrawable {
             int right = (int) (centerX + radius);
             int bottom = (int) (centerY + radius);
 
+            if (right - left > 0 && bottom - top > 0)
+                updateRasters(right - left);
+
+            final Bitmap raster = checked ? checkedRaster : uncheckedRaster;
+
+            if (raster != null) {
+                rasterPaint.setColorFilter(tintFilter);
+                rasterBounds.set(left, top, right, bottom);
+                canvas.drawBitmap(raster, null, rasterBounds, rasterPaint);
+                return;
+            }
+
             checkIcon.setBounds(left, top, right, bottom);
             checkIcon.draw(canvas);
         }
     }
 
+    private void updateRasters(int size) {
+
+        if (size == rasterSize && targetDensity == rasterDensity)
+            return;
+
+        releaseRasters();
+        rasterSize = size;
+        rasterDensity = targetDensity;
+        rasterizing = true;
+
+        checkedRaster = raster(checkedIcon, size);
+        checkedRasterOwned = checkedRaster != null && !isBitmapOf(checkedIcon, checkedRaster);
+
+        if (uncheckedIcon == checkedIcon) {
+            //tinted icon , both states draw the same raster
+            uncheckedRaster = checkedRaster;
+        } else {
+            uncheckedRaster = raster(uncheckedIcon, size);
+            uncheckedRasterOwned = uncheckedRaster != null && !isBitmapOf(uncheckedIcon, uncheckedRaster);
+        }
+
+        rasterizing = false;
+    }
+
+    //a still icon which invalidates itself is changed in place , it is rasterized again
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        if (!(who instanceof Animatable) && !rasterizing)
+            releaseRasters();
+
+        super.invalidateDrawable(who);
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = super.setVisible(visible, restart);
+
+        if (checkedIcon != null)
+            checkedIcon.setVisible(visible, restart);
+
+        if (uncheckedIcon != null && uncheckedIcon != checkedIcon)
+            uncheckedIcon.setVisible(visible, restart);
+
+        return changed;
+    }
+
+    private static Bitmap raster(Drawable icon, int size) {
+
+        if (icon == null || icon instanceof Animatable)
+            return null;
+
+        if (icon instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+
+            //already rasterized at the size , e.g. taken from the IconCache
+            if (bitmap != null && bitmap.getWidth() == size && bitmap.getHeight() == size
+                    && DrawableCompat.getColorFilter(icon) == null && icon.getAlpha() == 255)
+                return bitmap;
+        }
+
+        Bitmap bitmap = BitmapPool.obtain(size, size);
+        icon.setBounds(0, 0, size, size);
+        icon.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static boolean isBitmapOf(Drawable icon, Bitmap bitmap) {
+        return icon instanceof BitmapDrawable && ((BitmapDrawable) icon).getBitmap() == bitmap;
+    }
+
+    private void releaseRasters() {
+        if (checkedRasterOwned)
+            BitmapPool.release(checkedRaster);
+        if (uncheckedRasterOwned)
+            BitmapPool.release(uncheckedRaster);
+
+        checkedRaster = uncheckedRaster = null;
+        checkedRasterOwned = uncheckedRasterOwned = false;
+        rasterSize = -1;
+    }
+
+    //icons are rasterized again when they are changed in place (e.g. their color filter)
+    public void invalidateRasters() {
+        releaseRasters();
+        invalidateSelf();
+    }
+
+    //density the icons are rasterized for , the rasters are made again if it is changed
+    public void setTargetDensity(int densityDpi) {
+        this.targetDensity = densityDpi;
+    }
+
+    public int getTargetDensity() {
+        return targetDensity;
+    }
+
+
+    private void updateTintFilter() {
+
+        if (checkIconTint == null) {
+            tintFilter = null;
+            return;
+        }
+
+        final int[] state = checked ? (pressed ? STATE_CHECKED_PRESSED : STATE_CHECKED)
+                : (pressed ? STATE_PRESSED : STATE_NONE);
+
+        tintFilter = tintFilter(checkIconTint.getColorForState(state, checkIconTint.getDefaultColor()));
+
+        //animated icons are not rasterized , the filter is set on them
+        if (checkedIcon instanceof Animatable)
+            checkedIcon.setColorFilter(tintFilter);
+        if (uncheckedIcon instanceof Animatable && uncheckedIcon != checkedIcon)
+            uncheckedIcon.setColorFilter(tintFilter);
+    }
+
+    private static PorterDuffColorFilter tintFilter(int color) {
+
+        PorterDuffColorFilter filter = TINT_FILTERS.get(color);
+
+        if (filter == null) {
+            if (TINT_FILTERS.size() >= MAX_TINT_FILTERS)
+                TINT_FILTERS.clear();
+
+            filter = new PorterDuffColorFilter(color, PorterDuff.Mode.SRC_IN);
+            TINT_FILTERS.put(color, filter);
+        }
+        return filter;
+    }
+
+    public boolean isChecked() {
+        return checked;
+    }
+
+    public void setChecked(boolean checked) {
+        this.checked = checked;
+        updateTintFilter();
+    }
+
+    public boolean isPressed() {
+        return pressed;
+    }
+
+    public void setPressed(boolean pressed) {
+        this.pressed = pressed;
+        updateTintFilter();
+    }
+
+    public ColorStateList getCheckIconTint() {
+        return checkIconTint;
+    }
+
+    //colors of the icon for the checked , pressed and unchecked states , null draws the icons as they are
+    public void setCheckIconTint(ColorStateList checkIconTint) {
+        this.checkIconTint = checkIconTint;
+        updateTintFilter();
+    }
+
+    //single icon drawn for both states in the colors of the tint
+    public void setCheckIcon(Drawable checkIcon, ColorStateList tint) {
+        //animated icons are drawn with the filter set on them
+        if (checkIcon instanceof Animatable)
+            checkIcon = checkIcon.mutate();
+
+        setCheckedIcon(checkIcon);
+        setUncheckedIcon(checkIcon);
+        setCheckIconTint(tint);
+    }
+
+    //icon of the current state
     public Drawable getCheckIcon() {
-        return checkIcon;
+        return checked ? checkedIcon : uncheckedIcon;
     }
 
+    //set the icon of the current state
     public void setCheckIcon(Drawable checkIcon) {
-        this.checkIcon = checkIcon;
+        if (checked)
+            setCheckedIcon(checkIcon);
+        else
+            setUncheckedIcon(checkIcon);
+    }
+
+    public Drawable getCheckedIcon() {
+        return checkedIcon;
+    }
+
+    public void setCheckedIcon(Drawable checkedIcon) {
+        if (this.checkedIcon == checkedIcon)
+            return;
+
+        if (this.checkedIcon != uncheckedIcon)
+            replaceCallback(this.checkedIcon, checkedIcon);
+        else
+            replaceCallback(null, checkedIcon);
+
+        this.checkedIcon = checkedIcon;
+        releaseRasters();
+
+        if (checkIconTint != null)
+            updateTintFilter();
+    }
+
+    public Drawable getUncheckedIcon() {
+        return uncheckedIcon;
+    }
+
+    public void setUncheckedIcon(Drawable uncheckedIcon) {
+        if (this.uncheckedIcon == uncheckedIcon)
+            return;
+
+        if (this.uncheckedIcon != checkedIcon)
+            replaceCallback(this.uncheckedIcon, uncheckedIcon);
+        else
+            replaceCallback(null, uncheckedIcon);
+
+        this.uncheckedIcon = uncheckedIcon;
+        releaseRasters();
+
+        if (checkIconTint != null)
+            updateTintFilter();
     }
 
 
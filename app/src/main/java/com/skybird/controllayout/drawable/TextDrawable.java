@@ -4,8 +4,10 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.Typeface;
 import android.text.TextPaint;
 
+import java.nio.CharBuffer;
 
 
 public class TextDrawable extends AbstractDrawable {
@@ -17,8 +19,53 @@ public class TextDrawable extends AbstractDrawable {
     private String text;
     private TextPaint textPaint = new TextPaint();
 
+    //line breaks of the text, kept until text , width or textPaint changes
+    private TextLayout layout;
+    private final TextLayoutCache.Key layoutKey = new TextLayoutCache.Key();
+
     private float cornerRadius;
 
+    /*
+        ticker mode keeps the text in a char buffer which is updated in place,
+        only the changed chars are measured again and only their bounds are reported dirty
+     */
+    private boolean tickerMode;
+    private char[] tickerText = new char[16];
+    private CharBuffer tickerSequence = CharBuffer.wrap(tickerText);
+    private float[] tickerAdvances = new float[16];
+    private float[] measuredAdvances = new float[16];
+    //chars of a CharSequence update are copied here before being compared with the ticker text
+    private char[] incomingText = new char[16];
+    private int tickerLength;
+    private PrecomputedTextLayout.Params tickerParams;
+    private int tickerLayoutWidth = -1;
+    private TextLayout tickerLayout = new TextLayout();
+    private TextLayout previousTickerLayout = new TextLayout();
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+    private final Rect dirtyBounds = new Rect();
+
+    //text can overflow the bounds vertically , this is the area it was drawn on the last time
+    private final Rect drawnTextBounds = new Rect();
+    private final Rect textDirtyBounds = new Rect();
+    private final Rect overflowBounds = new Rect();
+
+    /*
+        auto size picks the largest text size (between min and max in steps of granularity)
+        with which the text fits inside of the bounds in at most maxLines lines,
+        the result is kept until the text , the bounds or the auto size values change
+     */
+    private boolean autoSize;
+    private float autoSizeMinTextSize;
+    private float autoSizeMaxTextSize;
+    private float autoSizeGranularity;
+    private int autoSizeMaxLines;
+    private float[] autoSizeAdvances = new float[16];
+    private final TextLayout autoSizeLayout = new TextLayout();
+    private String autoSizeText;
+    private Typeface autoSizeTypeface;
+    private int autoSizeWidth = -1;
+    private int autoSizeHeight = -1;
+
 
     public TextDrawable(Rect bounds) {
 
@@ -45,16 +92,141 @@ public class TextDrawable extends AbstractDrawable {
 
     public void setTextPaint(TextPaint textPaint) {
         this.textPaint = textPaint;
+        layout = null;
+        tickerParams = null;
+        autoSizeText = null;
     }
 
     public String getText() {
+        if (tickerMode)
+            return new String(tickerText, 0, tickerLength);
+
         return text;
     }
 
     public void setText(String text) {
+        if (tickerMode) {
+            setText((CharSequence) text);
+            return;
+        }
+
+        if (text == null ? this.text != null : !text.equals(this.text))
+            layout = null;
+
         this.text = text;
     }
 
+    public boolean isTickerMode() {
+        return tickerMode;
+    }
+
+    //ticker mode is meant for texts which are updated many times per second (counters , timers ,...)
+    public void setTickerMode(boolean tickerMode) {
+        if (this.tickerMode == tickerMode)
+            return;
+
+        if (tickerMode) {
+            String current = text;
+            text = null;
+            layout = null;
+            this.tickerMode = true;
+            tickerLength = 0;
+            setText((CharSequence) current);
+        } else {
+            String current = getText();
+            this.tickerMode = false;
+            tickerLength = 0;
+            tickerParams = null;
+            setText(current);
+        }
+    }
+
+    public void setText(CharSequence text) {
+
+        if (!tickerMode) {
+            setText(text == null ? null : text.toString());
+            return;
+        }
+
+        final int length = text == null ? 0 : text.length();
+        ensureTickerCapacity(length);
+
+        for (int i = 0; i < length; i++)
+            incomingText[i] = text.charAt(i);
+
+        updateTicker(incomingText, 0, length);
+    }
+
+    /*
+        copy the chars into the ticker buffer, in ticker mode the chars which are the same
+        as before are not measured again and getTextDirtyBounds() returns bounds of the changed chars
+     */
+    public void setText(char[] buffer, int offset, int length) {
+
+        if (!tickerMode) {
+            setText(new String(buffer, offset, length));
+            return;
+        }
+
+        ensureTickerCapacity(length);
+        updateTicker(buffer, offset, length);
+    }
+
+    //bounds which should be redrawn after the last ticker update, empty if nothing is changed
+    public Rect getTextDirtyBounds() {
+        return dirtyBounds;
+    }
+
+    /*
+        set text which is measured already, its layout is used only if it was
+        created with the current TextPaint and width otherwise text is measured again on draw
+     */
+    public void setPrecomputedText(PrecomputedTextLayout precomputed) {
+        setText(precomputed.getText());
+
+        if (precomputed.getParams().matches(textPaint))
+            layout = precomputed.layout;
+    }
+
+    public boolean isAutoSizeEnabled() {
+        return autoSize;
+    }
+
+    /*
+        fit the text inside of the bounds by choosing its size , while auto size is enabled
+        it owns the text size of the textPaint. maxLines <= 0 means no limit on lines.
+        ticker texts are not auto sized because they would change size on every update
+     */
+    public void setAutoSize(float minTextSize, float maxTextSize, float granularity, int maxLines) {
+        autoSize = true;
+        autoSizeMinTextSize = Math.min(minTextSize, maxTextSize);
+        autoSizeMaxTextSize = maxTextSize;
+        autoSizeGranularity = granularity > 0 ? granularity : 1;
+        autoSizeMaxLines = maxLines > 0 ? maxLines : Integer.MAX_VALUE;
+        autoSizeText = null;
+    }
+
+    public void disableAutoSize() {
+        autoSize = false;
+        autoSizeText = null;
+    }
+
+    public float getAutoSizeMinTextSize() {
+        return autoSizeMinTextSize;
+    }
+
+    public float getAutoSizeMaxTextSize() {
+        return autoSizeMaxTextSize;
+    }
+
+    public float getAutoSizeGranularity() {
+        return autoSizeGranularity;
+    }
+
+    public int getAutoSizeMaxLines() {
+        return autoSizeMaxLines;
+    }
+
     public void setCornerRadius(float cornerRadius){
         this.cornerRadius = cornerRadius;
     }
@@ -70,10 +242,12 @@ public class TextDrawable extends AbstractDrawable {
 
         if (isFrameDrawn()) {
             frameBounds.set(getBounds());
-            canvas.drawRoundRect(frameBounds, cornerRadius, cornerRadius, getPaint());
+            drawRoundRectFrame(canvas, frameBounds, cornerRadius);
         }
 
-        if (text != null) {
+        if (tickerMode) {
+            drawTicker(canvas);
+        } else if (text != null) {
             adjustTextAndDraw(canvas);
         }
 
@@ -81,57 +255,422 @@ public class TextDrawable extends AbstractDrawable {
     }
 
 
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        if (layout != null && layout.key.width != bounds.width())
+            layout = null;
+
+        if (bounds.width() != autoSizeWidth || bounds.height() != autoSizeHeight)
+            autoSizeText = null;
+    }
+
+    //measure the text now instead of on the next draw , draw uses the same layout
+    @Override
+    public void prepareDraw() {
+        if (getBounds().isEmpty())
+            return;
+
+        if (tickerMode)
+            prepareTicker();
+        else if (text != null)
+            prepareLayout();
+    }
+
+    /*
+        the area the text was drawn on the last time and the one it is going to be drawn on if it is
+        laid out already (prepareDraw()) , so a text which starts to overflow after it is changed
+        is not clipped to the old area
+     */
+    @Override
+    public Rect getDirtyBounds() {
+        textDirtyBounds.set(super.getDirtyBounds());
+        if (!drawnTextBounds.isEmpty())
+            textDirtyBounds.union(drawnTextBounds);
+
+        final TextLayout next = preparedLayout();
+        if (next != null) {
+            overflowBounds(next, overflowBounds);
+            textDirtyBounds.union(overflowBounds);
+        }
+        return textDirtyBounds;
+    }
+
+    //layout the next draw is going to use , null if the text is not laid out for the current inputs
+    private TextLayout preparedLayout() {
+        final int width = getBounds().width();
+
+        if (tickerMode)
+            return tickerParams != null && tickerParams.matches(textPaint) && tickerLayoutWidth == width
+                    ? tickerLayout : null;
+
+        return text != null && layout != null && layout.matches(text, width, textPaint) ? layout : null;
+    }
+
     @Override
     public boolean isPointInside(float x , float y){
         return x > getBounds().left && x < getBounds().right && y > getBounds().top && y <getBounds().bottom;
     }
 
-    //measure text length and adjust it for drawing inside the frame
+    //draw the cached lines, text is measured again only if one of the layout inputs changed
     private void adjustTextAndDraw(Canvas canvas){
 
+        final TextLayout layout = prepareLayout();
+
+        int x = alignedX();
+
+        for (int line = 0; line < layout.lineCount; line++) {
+            canvas.drawText(text, layout.lineStart[line], layout.lineEnd[line], x, baseline(layout, line), textPaint);
+        }
+
+        overflowBounds(layout, drawnTextBounds);
+
+    }
+
+    private TextLayout prepareLayout() {
+
         int width = getBounds().right - getBounds().left;
 
-        textPaint.getTextBounds(text , 0 , text.length() , textBounds);
+        if (autoSize)
+            resolveAutoSize();
+
+        if (layout == null || !layout.matches(text, width, textPaint))
+            layout = TextLayoutCache.obtain(text, width, textPaint, layoutKey, textBounds);
+
+        return layout;
+    }
+
+    private void resolveAutoSize() {
+
+        final int width = getBounds().width();
+        final int height = getBounds().height();
+
+        if (text.equals(autoSizeText) && width == autoSizeWidth && height == autoSizeHeight
+                && textPaint.getTypeface() == autoSizeTypeface)
+            return;
+
+        textPaint.setTextSize(findAutoSize(width, height));
+
+        autoSizeText = text;
+        autoSizeWidth = width;
+        autoSizeHeight = height;
+        autoSizeTypeface = textPaint.getTypeface();
+    }
+
+    /*
+        binary search over the candidate sizes , text is measured once at the max size
+        and every probe scales those advances instead of measuring the text again.
+        scaled advances are not exactly the advances at a smaller size , so the real
+        layout of the chosen size is checked and a smaller size is used while it doesn't fit
+     */
+    private float findAutoSize(int width, int height) {
 
-        final int charHeight = textBounds.bottom - textBounds.top;
-        final int charWidth = (textBounds.right - textBounds.left) / text.length();
+        final int length = text.length();
+        if (length == 0 || width <= 0 || height <= 0)
+            return autoSizeMaxTextSize;
 
-        int drawingTopPos = getBounds().centerY() + charHeight/2;
+        if (autoSizeAdvances.length < length)
+            autoSizeAdvances = new float[Math.max(length, autoSizeAdvances.length * 2)];
 
-        for (int index =0; index<text.length();){
+        textPaint.setTextSize(autoSizeMaxTextSize);
+        textPaint.getTextWidths(text, 0, length, autoSizeAdvances);
+        textPaint.getTextBounds(text, 0, length, textBounds);
+        final int lineHeight = textBounds.bottom - textBounds.top;
 
-            String tempText ="";
-            int tempTextWidth =0;
+        final int candidates = (int) Math.ceil((autoSizeMaxTextSize - autoSizeMinTextSize) / autoSizeGranularity) + 1;
 
-            while (index < text.length() &&tempTextWidth < width - (2 * charWidth) ){
+        //the smallest size is used if even it does not fit
+        int low = 1, high = candidates - 1, best = 0;
 
-                //concat char of the main string to the tempText string and increase index
-                //until tempTextWidth being greater than main width
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
 
-                tempText += text.charAt(index++);
-                textPaint.getTextBounds(tempText , 0 , tempText.length() , textBounds);
-                tempTextWidth = textBounds.right - textBounds.left;
+            if (fits(autoSizeCandidate(middle), length, lineHeight, width, height)) {
+                best = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
             }
+        }
+
+        while (best > 0 && !layoutFits(autoSizeCandidate(best), width, height))
+            best--;
+
+        return autoSizeCandidate(best);
+    }
+
+    private float autoSizeCandidate(int index) {
+        return Math.min(autoSizeMinTextSize + index * autoSizeGranularity, autoSizeMaxTextSize);
+    }
+
+    private boolean fits(float textSize, int length, int lineHeight, int width, int height) {
+
+        final float scale = textSize / autoSizeMaxTextSize;
 
-            //draw measured text and
-            int x =0;
-            switch (textPaint.getTextAlign()){
-                case LEFT:
-                    x = getBounds().left;
-                    break;
-                case CENTER:
-                    x = getBounds().centerX();
-                    break;
-                case RIGHT:
-                    x = getBounds().right;
-                    break;
+        autoSizeLayout.breakLines(text, autoSizeAdvances, length, width / scale);
+
+        if (autoSizeLayout.lineCount > autoSizeMaxLines
+                || autoSizeLayout.lineCount * lineHeight * scale > height)
+            return false;
+
+        for (int line = 0; line < autoSizeLayout.lineCount; line++) {
+            if (autoSizeLayout.lineWidth[line] * scale > width)
+                return false;
+        }
+        return true;
+    }
+
+    //the layout is kept , prepareLayout reuses it when the size fits
+    private boolean layoutFits(float textSize, int width, int height) {
+
+        textPaint.setTextSize(textSize);
+        layout = TextLayoutCache.obtain(text, width, textPaint, layoutKey, textBounds);
+
+        if (layout.lineCount > autoSizeMaxLines || layout.lineCount * layout.lineHeight > height)
+            return false;
+
+        for (int line = 0; line < layout.lineCount; line++) {
+            if (layout.lineWidth[line] > width)
+                return false;
+        }
+        return true;
+    }
+
+    private int alignedX() {
+        switch (textPaint.getTextAlign()){
+            case LEFT:
+                return getBounds().left;
+            case RIGHT:
+                return getBounds().right;
+            default:
+                return getBounds().centerX();
+        }
+    }
+
+    //left of a line drawn at alignedX()
+    private float lineLeft(float lineWidth) {
+        switch (textPaint.getTextAlign()){
+            case LEFT:
+                return getBounds().left;
+            case RIGHT:
+                return getBounds().right - lineWidth;
+            default:
+                return getBounds().centerX() - lineWidth / 2;
+        }
+    }
+
+
+    private void ensureTickerCapacity(int length) {
+        if (tickerText.length >= length)
+            return;
+
+        int capacity = Math.max(length, tickerText.length * 2);
+
+        char[] text = new char[capacity];
+        System.arraycopy(tickerText, 0, text, 0, tickerLength);
+        tickerText = text;
+        tickerSequence = CharBuffer.wrap(tickerText);
+
+        float[] advances = new float[capacity];
+        System.arraycopy(tickerAdvances, 0, advances, 0, tickerLength);
+        tickerAdvances = advances;
+
+        measuredAdvances = new float[capacity];
+        incomingText = new char[capacity];
+    }
+
+    private void updateTicker(char[] buffer, int offset, int length) {
+
+        dirtyBounds.setEmpty();
+
+        final int oldLength = tickerLength;
+        final int minLength = Math.min(length, oldLength);
+
+        //common prefix and suffix of the old and the new text
+        int first = 0;
+        while (first < minLength && tickerText[first] == buffer[offset + first])
+            first++;
+
+        if (first == length && length == oldLength)
+            return;
+
+        int suffix = 0;
+        while (suffix < minLength - first
+                && tickerText[oldLength - 1 - suffix] == buffer[offset + length - 1 - suffix])
+            suffix++;
+
+        float oldChangedWidth = 0;
+        for (int i = first; i < oldLength - suffix; i++)
+            oldChangedWidth += tickerAdvances[i];
+
+        //move advances of the unchanged suffix to its new position then copy the new chars
+        System.arraycopy(tickerAdvances, oldLength - suffix, tickerAdvances, length - suffix, suffix);
+
+        System.arraycopy(buffer, offset, tickerText, 0, length);
+
+        tickerLength = length;
+
+        if (tickerParams == null || !tickerParams.matches(textPaint)) {
+            //text paint is changed so everything is measured again on the next draw
+            tickerParams = null;
+            setTickerDirty();
+            return;
+        }
+
+        //measure the changed chars , extended to whole grapheme clusters
+        int measureStart = TextLayout.clusterStart(tickerSequence, first);
+        int measureEnd = length - suffix;
+        if (measureEnd > measureStart && measureEnd < length)
+            measureEnd = TextLayout.nextClusterBoundary(tickerSequence, measureEnd - 1, length);
+
+        if (measureEnd > measureStart) {
+            textPaint.getTextWidths(tickerText, measureStart, measureEnd - measureStart, measuredAdvances);
+            System.arraycopy(measuredAdvances, 0, tickerAdvances, measureStart, measureEnd - measureStart);
+        }
+
+        float newChangedWidth = 0;
+        for (int i = first; i < length - suffix; i++)
+            newChangedWidth += tickerAdvances[i];
+
+        if (tickerLayoutWidth != getBounds().width()) {
+            //not laid out for the current bounds yet , it will be broken on the next draw
+            tickerLayoutWidth = -1;
+            setTickerDirty();
+            return;
+        }
+
+        TextLayout previous = tickerLayout;
+        tickerLayout = previousTickerLayout;
+        previousTickerLayout = previous;
+        tickerLayout.lineHeight = previous.lineHeight;
+        tickerLayout.breakLines(tickerSequence, tickerAdvances, length, tickerLayoutWidth);
+
+        computeDirtyBounds(previous, first, oldLength - suffix, length - suffix,
+                oldChangedWidth == newChangedWidth);
+    }
+
+    //the whole text is dirty , where it was drawn and where it is going to be drawn
+    private void setTickerDirty() {
+        prepareDraw();
+        dirtyBounds.set(getDirtyBounds());
+    }
+
+    /*
+        union of the bounds of the lines which are changed, if a line keeps its range and width
+        only the part from the first changed char to the last one is dirty
+     */
+    private void computeDirtyBounds(TextLayout previous, int first, int oldChangeEnd, int newChangeEnd,
+                                    boolean sameChangedWidth) {
+
+        final TextLayout current = tickerLayout;
+
+        if (previous.lineCount != current.lineCount) {
+            setTickerDirty();
+            return;
+        }
+
+        final int padding = (int) Math.ceil(textPaint.getTextSize() / 8) + 1;
+
+        for (int line = 0; line < current.lineCount; line++) {
+
+            final int start = current.lineStart[line];
+            final int end = current.lineEnd[line];
+            final boolean sameLine = previous.lineStart[line] == start && previous.lineEnd[line] == end
+                    && previous.lineWidth[line] == current.lineWidth[line];
+
+            if (sameLine && (end <= first || start >= Math.max(oldChangeEnd, newChangeEnd)))
+                continue;
+
+            final float baseline = tickerBaseline(current, line);
+            final int top = (int) Math.floor(baseline + fontMetrics.top) - padding;
+            final int bottom = (int) Math.ceil(baseline + fontMetrics.bottom) + padding;
+
+            float left, right;
+
+            if (sameLine) {
+                left = lineLeft(current.lineWidth[line]);
+
+                float x = left;
+                for (int i = start; i < Math.max(first, start); i++)
+                    x += tickerAdvances[i];
+
+                right = left + current.lineWidth[line];
+                if (sameChangedWidth && newChangeEnd <= end) {
+                    right = x;
+                    for (int i = Math.max(first, start); i < newChangeEnd; i++)
+                        right += tickerAdvances[i];
+                }
+                left = x;
+
+            } else {
+                float previousLeft = lineLeft(previous.lineWidth[line]);
+                left = Math.min(previousLeft, lineLeft(current.lineWidth[line]));
+                right = Math.max(previousLeft + previous.lineWidth[line],
+                        lineLeft(current.lineWidth[line]) + current.lineWidth[line]);
             }
-            canvas.drawText(tempText , x , drawingTopPos , textPaint);
-            drawingTopPos += charHeight;
 
+            dirtyBounds.union((int) Math.floor(left) - padding, top, (int) Math.ceil(right) + padding, bottom);
         }
+    }
 
+    //text block with half a line of room for ascenders and descenders , empty if it is inside of the bounds
+    private void overflowBounds(TextLayout layout, Rect out) {
+        final int halfHeight = (layout.lineCount + 1) * layout.lineHeight / 2;
+        final int top = getBounds().centerY() - halfHeight;
+        final int bottom = getBounds().centerY() + halfHeight;
+
+        if (top < getBounds().top || bottom > getBounds().bottom)
+            out.set(getBounds().left, top, getBounds().right, bottom);
+        else
+            out.setEmpty();
     }
 
-}
+    //lines are drawn as a block centered vertically inside of the bounds
+    private float baseline(TextLayout layout, int line) {
+        return getBounds().centerY() - (layout.lineCount * layout.lineHeight) / 2f
+                + (line + 1) * layout.lineHeight;
+    }
+
+    //ticker lines are as high as the font so the baseline is above the descent of the line
+    private float tickerBaseline(TextLayout layout, int line) {
+        return baseline(layout, line) - fontMetrics.descent;
+    }
+
+    private void drawTicker(Canvas canvas) {
+
+        prepareTicker();
+
+        final int x = alignedX();
+
+        for (int line = 0; line < tickerLayout.lineCount; line++) {
+            final int start = tickerLayout.lineStart[line];
+            canvas.drawText(tickerText, start, tickerLayout.lineEnd[line] - start, x,
+                    tickerBaseline(tickerLayout, line), textPaint);
+        }
+
+        overflowBounds(tickerLayout, drawnTextBounds);
+    }
 
+    //measure all of the chars if the text paint is changed and break them again if the width is changed
+    private TextLayout prepareTicker() {
+
+        final int width = getBounds().width();
+
+        if (tickerParams == null || !tickerParams.matches(textPaint)) {
+            tickerParams = new PrecomputedTextLayout.Params(textPaint);
+            textPaint.getTextWidths(tickerText, 0, tickerLength, tickerAdvances);
+            textPaint.getFontMetrics(fontMetrics);
+
+            //from the font not from the chars , so it doesn't change with the value and an empty text has it too
+            tickerLayout.lineHeight = (int) Math.ceil(fontMetrics.descent - fontMetrics.ascent);
+            tickerLayoutWidth = -1;
+        }
+
+        if (tickerLayoutWidth != width) {
+            tickerLayout.breakLines(tickerSequence, tickerAdvances, tickerLength, width);
+            tickerLayoutWidth = width;
+        }
+
+        return tickerLayout;
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Rect;
+import android.text.TextPaint;
+
+
+/*
+    line breaks of a text measured for a specific width and TextPaint
+    (size , typeface , ...), TextDrawable keeps one of these until
+    one of those inputs changes instead of wrapping the text on every draw.
+    layouts are shared through the TextLayoutCache so they are never changed after creation
+ */
+final class TextLayout {
+
+    final TextLayoutCache.Key key;
+
+    int lineCount;
+    int[] lineStart;
+    int[] lineEnd;
+    float[] lineWidth;
+
+    //height of a single line, every line is drawn this much below the previous one
+    int lineHeight;
+
+    private TextLayout(TextLayoutCache.Key key) {
+        this.key = key;
+    }
+
+    //layout which is not cached and is broken again in place , used by the ticker text
+    TextLayout() {
+        this(null);
+        lineStart = new int[1];
+        lineEnd = new int[1];
+        lineWidth = new float[1];
+    }
+
+    boolean matches(String text, int width, TextPaint paint) {
+        return key.matches(text, width, paint);
+    }
+
+    static TextLayout create(TextLayoutCache.Key key, TextPaint paint, Rect textBounds) {
+
+        TextLayout layout = new TextLayout(key);
+
+        final String text = key.text;
+        final int length = text.length();
+
+        layout.lineStart = new int[length + 1];
+        layout.lineEnd = new int[length + 1];
+        layout.lineWidth = new float[length + 1];
+
+        if (length == 0)
+            return layout;
+
+        paint.getTextBounds(text, 0, length, textBounds);
+        layout.lineHeight = textBounds.bottom - textBounds.top;
+
+        final float[] advances = new float[length];
+        paint.getTextWidths(text, 0, length, advances);
+
+        layout.breakLines(text, advances, length, key.width);
+
+        return layout;
+    }
+
+    /*
+        break the text into lines in one forward pass over the glyph advances,
+        a line is extended cluster by cluster until its width reaches the available
+        width (minus two average chars as before) , then it is broken after the last
+        whitespace of the line or , if it is a single word , before the current cluster.
+        surrogate pairs , combining marks and emoji sequences are never split
+     */
+    void breakLines(CharSequence text, float[] advances, int length, float width) {
+
+        lineCount = 0;
+
+        if (lineStart.length < length + 1) {
+            lineStart = new int[length + 1];
+            lineEnd = new int[length + 1];
+            lineWidth = new float[length + 1];
+        }
+
+        if (length == 0)
+            return;
+
+        float totalWidth = 0;
+        for (int i = 0; i < length; i++)
+            totalWidth += advances[i];
+
+        //whole pixels like the char width of the old loop so lines break at the same place
+        final float maxLineWidth = width - 2 * (int) (totalWidth / length);
+
+        int start = 0;
+        float lineWidth = 0;
+
+        //end of the last word of the line and where the next line starts if broken there
+        int wordEnd = -1, nextWordStart = -1;
+        float wordEndWidth = 0, nextWordStartWidth = 0;
+
+        int index = 0;
+        while (index < length) {
+
+            final char c = text.charAt(index);
+
+            if (c == '\n') {
+                addLine(text, advances, start, index, lineWidth);
+                start = ++index;
+                lineWidth = 0;
+                wordEnd = -1;
+                continue;
+            }
+
+            if (index > start && lineWidth >= maxLineWidth) {
+
+                if (wordEnd > start) {
+                    addLine(start, wordEnd, wordEndWidth);
+                    start = nextWordStart;
+                    lineWidth -= nextWordStartWidth;
+                } else {
+                    addLine(start, index, lineWidth);
+                    start = index;
+                    lineWidth = 0;
+                }
+                wordEnd = -1;
+                continue;
+            }
+
+            final int clusterEnd = nextClusterBoundary(text, index, length);
+            final boolean whitespace = Character.isWhitespace(c);
+
+            if (whitespace && index > start && !Character.isWhitespace(text.charAt(index - 1))) {
+                wordEnd = index;
+                wordEndWidth = lineWidth;
+            }
+
+            while (index < clusterEnd)
+                lineWidth += advances[index++];
+
+            if (whitespace) {
+                nextWordStart = index;
+                nextWordStartWidth = lineWidth;
+            }
+        }
+
+        addLine(text, advances, start, length, lineWidth);
+    }
+
+    private void addLine(int start, int end, float width) {
+        lineStart[lineCount] = start;
+        lineEnd[lineCount] = end;
+        lineWidth[lineCount] = width;
+        lineCount++;
+    }
+
+    //add the line without its trailing whitespaces
+    private void addLine(CharSequence text, float[] advances, int start, int end, float width) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1)))
+            width -= advances[--end];
+        addLine(start, end, width);
+    }
+
+    //index where the grapheme cluster which contains the index starts
+    static int clusterStart(CharSequence text, int index) {
+        while (index > 0 && index < text.length()) {
+            final int codePoint = Character.codePointAt(text, index);
+            final char c = text.charAt(index);
+            if (!Character.isLowSurrogate(c) && !isExtending(codePoint) && text.charAt(index - 1) != 0x200D)
+                break;
+            index--;
+        }
+        return index;
+    }
+
+    //index right after the grapheme cluster which starts at the index
+    static int nextClusterBoundary(CharSequence text, int index, int length) {
+
+        int codePoint = Character.codePointAt(text, index);
+        index += Character.charCount(codePoint);
+
+        //a flag is a pair of regional indicators
+        if (isRegionalIndicator(codePoint) && index < length) {
+            final int next = Character.codePointAt(text, index);
+            if (isRegionalIndicator(next))
+                index += Character.charCount(next);
+        }
+
+        while (index < length) {
+
+            final int next = Character.codePointAt(text, index);
+
+            //marks and modifiers extend the cluster , a zero width joiner glues the next code point to it
+            if (!isExtending(next) && codePoint != 0x200D)
+                break;
+
+            index += Character.charCount(next);
+            codePoint = next;
+        }
+
+        return index;
+    }
+
+    private static boolean isExtending(int codePoint) {
+
+        if (codePoint == 0x200D /*zero width joiner*/
+                || (codePoint >= 0xFE00 && codePoint <= 0xFE0F) /*variation selectors*/
+                || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF) /*emoji skin tones*/
+                || (codePoint >= 0xE0020 && codePoint <= 0xE007F) /*emoji tags*/
+                || (codePoint >= 0xE0100 && codePoint <= 0xE01EF))
+            return true;
+
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isRegionalIndicator(int codePoint) {
+        return codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF;
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import androidx.collection.LruCache;
+
+import java.util.Locale;
+import java.util.Objects;
+
+
+/*
+    process wide cache of measured text layouts shared by all of the TextDrawables,
+    labels which repeat across many ControlLayouts ("Enabled" , "Sync" , ...) are
+    measured once per width and TextPaint and then only looked up
+ */
+public final class TextLayoutCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final LruCache<Key, TextLayout> LAYOUTS = new LruCache<>(DEFAULT_MAX_ENTRIES);
+
+    private TextLayoutCache() {
+    }
+
+
+    //set how many layouts can be held , least recently used ones are evicted first
+    public static void setMaxEntries(int maxEntries) {
+        LAYOUTS.resize(maxEntries);
+    }
+
+    public static int getMaxEntries() {
+        return LAYOUTS.maxSize();
+    }
+
+    public static int size() {
+        return LAYOUTS.size();
+    }
+
+    public static int hitCount() {
+        return LAYOUTS.hitCount();
+    }
+
+    public static int missCount() {
+        return LAYOUTS.missCount();
+    }
+
+    public static void evictAll() {
+        LAYOUTS.evictAll();
+    }
+
+
+    /*
+        return the cached layout of the text or measure and cache it,
+        probe is a caller owned key reused for lookups so a hit allocates nothing
+     */
+    static TextLayout obtain(String text, int width, TextPaint paint, Key probe, Rect textBounds) {
+
+        probe.set(text, width, paint);
+
+        return obtain(probe, paint, textBounds);
+    }
+
+    //paint must have the properties the key was set with
+    static TextLayout obtain(Key probe, TextPaint paint, Rect textBounds) {
+
+        TextLayout layout = LAYOUTS.get(probe);
+
+        if (layout == null) {
+            layout = TextLayout.create(probe.copy(), paint, textBounds);
+            LAYOUTS.put(layout.key, layout);
+        }
+
+        return layout;
+    }
+
+
+    //the inputs of a layout: text , available width and the TextPaint properties which affect measuring
+    static final class Key {
+
+        String text;
+        int width;
+
+        private float textSize;
+        private float textScaleX;
+        private Typeface typeface;
+        private int flags;
+        private float letterSpacing;
+        private Locale textLocale;
+        private String fontFeatureSettings;
+
+        void set(String text, int width, TextPaint paint) {
+            this.text = text;
+            this.width = width;
+            textSize = paint.getTextSize();
+            textScaleX = paint.getTextScaleX();
+            typeface = paint.getTypeface();
+            flags = paint.getFlags();
+            letterSpacing = PrecomputedTextLayout.Params.letterSpacing(paint);
+            textLocale = paint.getTextLocale();
+            fontFeatureSettings = PrecomputedTextLayout.Params.fontFeatureSettings(paint);
+        }
+
+        void set(String text, int width, PrecomputedTextLayout.Params params) {
+            this.text = text;
+            this.width = width;
+            textSize = params.textSize;
+            textScaleX = params.textScaleX;
+            typeface = params.typeface;
+            flags = params.flags;
+            letterSpacing = params.letterSpacing;
+            textLocale = params.textLocale;
+            fontFeatureSettings = params.fontFeatureSettings;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.text = text;
+            key.width = width;
+            key.textSize = textSize;
+            key.textScaleX = textScaleX;
+            key.typeface = typeface;
+            key.flags = flags;
+            key.letterSpacing = letterSpacing;
+            key.textLocale = textLocale;
+            key.fontFeatureSettings = fontFeatureSettings;
+            return key;
+        }
+
+        boolean matches(String text, int width, TextPaint paint) {
+            return this.width == width
+                    && textSize == paint.getTextSize()
+                    && textScaleX == paint.getTextScaleX()
+                    && typeface == paint.getTypeface()
+                    && flags == paint.getFlags()
+                    && letterSpacing == PrecomputedTextLayout.Params.letterSpacing(paint)
+                    && textLocale.equals(paint.getTextLocale())
+                    && Objects.equals(fontFeatureSettings, PrecomputedTextLayout.Params.fontFeatureSettings(paint))
+                    && this.text.equals(text);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return width == key.width
+                    && textSize == key.textSize
+                    && textScaleX == key.textScaleX
+                    && typeface == key.typeface
+                    && flags == key.flags
+                    && letterSpacing == key.letterSpacing
+                    && textLocale.equals(key.textLocale)
+                    && Objects.equals(fontFeatureSettings, key.fontFeatureSettings)
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + flags;
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + textLocale.hashCode();
+            result = 31 * result + (fontFeatureSettings != null ? fontFeatureSettings.hashCode() : 0);
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.skybird.controllayout;
+
+import android.content.Context;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+//children are measured at most once per pass , matching children again only if the final size differs
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30)
+public class ControlLayoutMeasureTest {
+
+    private static final class CountingView extends View {
+
+        int measureCount;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    private ControlLayout layout;
+    private CountingView matchParent;
+    private CountingView wrapContent;
+    private CountingView gone;
+
+    @Before
+    public void setUp() {
+        layout = new ControlLayout(RuntimeEnvironment.getApplication());
+        layout.setControlRegionHeight(50);
+
+        matchParent = addChild(ControlLayout.LayoutParams.MATCH_PARENT);
+        wrapContent = addChild(ControlLayout.LayoutParams.WRAP_CONTENT);
+        wrapContent.setMinimumWidth(40);
+        wrapContent.setMinimumHeight(30);
+        gone = addChild(ControlLayout.LayoutParams.MATCH_PARENT);
+        gone.setVisibility(View.GONE);
+    }
+
+    @Test
+    public void exactParentMeasuresEachChildOnce() {
+        measure(MeasureSpec.EXACTLY);
+
+        assertEquals(1, matchParent.measureCount);
+        assertEquals(1, wrapContent.measureCount);
+        assertEquals(0, gone.measureCount);
+    }
+
+    @Test
+    public void childWhichGotTheFinalSizeIsNotMeasuredAgain() {
+        //a matching child takes all of the room it is offered , which is the final size of the parent
+        measure(MeasureSpec.AT_MOST);
+
+        assertEquals(1, matchParent.measureCount);
+        assertEquals(1, wrapContent.measureCount);
+        assertEquals(0, gone.measureCount);
+    }
+
+    @Test
+    public void matchingChildIsMeasuredAgainWhenTheFinalSizeDiffers() {
+        //unspecified the matching child is 0 wide until the parent is sized by the wrapping child
+        measure(MeasureSpec.UNSPECIFIED);
+
+        assertEquals(2, matchParent.measureCount);
+        assertEquals(1, wrapContent.measureCount);
+        assertEquals(0, gone.measureCount);
+
+        assertEquals(layout.getMeasuredWidth() - layout.getPaddingLeft() - layout.getPaddingRight(),
+                matchParent.getMeasuredWidth());
+    }
+
+    @Test
+    public void sameSpecsDoNotMeasureAgain() {
+        measure(MeasureSpec.EXACTLY);
+        layout.layout(0, 0, 300, 400);
+
+        //the parent is measured again but its children get the same specs , so View.measure skips them
+        layout.forceLayout();
+        measure(MeasureSpec.EXACTLY);
+
+        assertEquals(1, matchParent.measureCount);
+        assertEquals(1, wrapContent.measureCount);
+    }
+
+    @Test
+    public void firstMeasureWithZeroSpecsMeasuresChildren() {
+        //an unspecified parent of size 0 hands its children a spec of 0
+        layout.measure(0, 0);
+
+        assertEquals(1, matchParent.measureCount);
+        assertEquals(1, wrapContent.measureCount);
+        assertEquals(0, gone.measureCount);
+    }
+
+    @Test
+    public void childWhichRequestsLayoutIsMeasuredAgain() {
+        measure(MeasureSpec.EXACTLY);
+        layout.layout(0, 0, 300, 400);
+
+        wrapContent.requestLayout();
+        measure(MeasureSpec.EXACTLY);
+
+        assertEquals(1, matchParent.measureCount);
+        assertEquals(2, wrapContent.measureCount);
+    }
+
+    private CountingView addChild(int size) {
+        final CountingView child = new CountingView(RuntimeEnvironment.getApplication());
+        layout.addView(child, new ControlLayout.LayoutParams(size, size));
+        return child;
+    }
+
+    private void measure(int mode) {
+        layout.measure(MeasureSpec.makeMeasureSpec(300, mode), MeasureSpec.makeMeasureSpec(400, mode));
+    }
+
+}
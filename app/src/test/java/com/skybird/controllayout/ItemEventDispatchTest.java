@@ -0,0 +1,147 @@
+package com.skybird.controllayout;
+
+import android.graphics.Rect;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//events dispatched on taps and long presses come from the pool and copies kept by listeners stay intact
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30)
+public class ItemEventDispatchTest {
+
+    private ControlLayout layout;
+    private float x, y;
+
+    //runs the executor listeners later , like another thread which is behind the ui thread
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    private final Executor later = pending::add;
+
+    private final List<ItemEvent> keptCopies = new ArrayList<>();
+    private final List<Long> laterClickTimes = new ArrayList<>();
+    private int longPresses;
+    private int laterLongPresses;
+
+    @Before
+    public void setUp() {
+        layout = new ControlLayout(RuntimeEnvironment.getApplication());
+        layout.setControlRegionHeight(60);
+        layout.measure(View.MeasureSpec.makeMeasureSpec(300, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, 300, 400);
+
+        final Rect text = layout.getTextRegion().getBounds();
+        x = text.centerX();
+        y = text.centerY();
+
+        layout.addOnItemClickListener(event -> keptCopies.add(ItemEvent.obtain(event)));
+        layout.addOnItemClickListener(event -> laterClickTimes.add(event.getEventTime()), later);
+        layout.addOnItemLongPressedListener(event -> longPresses++);
+        layout.addOnItemLongPressedListener(event -> laterLongPresses++, later);
+    }
+
+    @Test
+    public void poolStaysBounded() {
+
+        long time = 1000;
+
+        for (int i = 0; i < 3000; i++) {
+
+            if (i % 100 == 99)
+                longPress(time);
+            else
+                tap(time);
+            time += 100;
+
+            assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+
+            if (pending.size() > 40)
+                runPending();
+
+            if (keptCopies.size() > 25)
+                recycleKeptCopies();
+        }
+
+        runPending();
+        recycleKeptCopies();
+
+        assertEquals(30, longPresses);
+        assertEquals(30, laterLongPresses);
+        assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+    }
+
+    @Test
+    public void keptCopyIsNotOverwrittenByTheNextTap() {
+
+        tap(1000);
+        tap(2000);
+        tap(3000);
+
+        assertEquals(3, keptCopies.size());
+        for (int i = 0; i < 3; i++) {
+            final ItemEvent copy = keptCopies.get(i);
+            assertEquals(ItemEvent.TEXT, copy.getItem());
+            assertEquals(1010 + i * 1000, copy.getEventTime());
+            assertEquals(x, copy.getX(), 0);
+            assertEquals(y, copy.getY(), 0);
+        }
+
+        //listeners on an executor get their own copies which are still intact when they run
+        runPending();
+        assertEquals(Arrays.asList(1010L, 2010L, 3010L), laterClickTimes);
+
+        recycleKeptCopies();
+    }
+
+    private void tap(long downTime) {
+        dispatch(downTime, downTime, MotionEvent.ACTION_DOWN);
+        dispatch(downTime, downTime + 10, MotionEvent.ACTION_UP);
+    }
+
+    private void longPress(long downTime) {
+        dispatch(downTime, downTime, MotionEvent.ACTION_DOWN);
+        ShadowLooper.idleMainLooper(ViewConfiguration.getTapTimeout() + ViewConfiguration.getLongPressTimeout() + 50,
+                TimeUnit.MILLISECONDS);
+        dispatch(downTime, downTime + 1000, MotionEvent.ACTION_UP);
+    }
+
+    private void dispatch(long downTime, long eventTime, int action) {
+        final MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        layout.onTouchEvent(event);
+        event.recycle();
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+            assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+        }
+    }
+
+    private void recycleKeptCopies() {
+        for (ItemEvent copy : keptCopies) {
+            copy.recycle();
+            assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+        }
+        keptCopies.clear();
+    }
+
+}
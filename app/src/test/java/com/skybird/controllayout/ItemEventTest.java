@@ -0,0 +1,85 @@
+package com.skybird.controllayout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ItemEventTest {
+
+    @Test
+    public void poolStaysBounded() {
+
+        final List<ItemEvent> held = new ArrayList<>();
+
+        for (int tap = 0; tap < 5000; tap++) {
+
+            //a tap dispatches one event and listeners keep copies of it for a while
+            final ItemEvent event = ItemEvent.obtain(tap % 3, tap, tap, tap, tap % 2 == 0);
+            held.add(ItemEvent.obtain(event));
+            event.recycle();
+
+            assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+
+            if (held.size() == 25) {
+                for (ItemEvent copy : held) {
+                    copy.recycle();
+                    assertTrue(ItemEvent.getPoolSize() <= ItemEvent.MAX_POOL_SIZE);
+                }
+                held.clear();
+            }
+        }
+
+        assertEquals(ItemEvent.MAX_POOL_SIZE, ItemEvent.getPoolSize());
+    }
+
+    @Test
+    public void recycledEventIsReused() {
+
+        final ItemEvent event = ItemEvent.obtain(ItemEvent.TEXT, 1, 2, 3, true);
+        event.recycle();
+
+        final ItemEvent reused = ItemEvent.obtain(ItemEvent.CHECKBOX, 4, 5, 6, false);
+        assertSame(event, reused);
+
+        assertEquals(ItemEvent.CHECKBOX, reused.getItem());
+        assertEquals(4, reused.getX(), 0);
+        assertEquals(5, reused.getY(), 0);
+        assertEquals(6, reused.getEventTime());
+        assertFalse(reused.isChecked());
+
+        reused.recycle();
+    }
+
+    @Test
+    public void copyHasTheSameValues() {
+
+        final ItemEvent event = ItemEvent.obtain(ItemEvent.ICON, 7, 8, 9, true);
+        final ItemEvent copy = ItemEvent.obtain(event);
+        event.recycle();
+
+        assertEquals(ItemEvent.ICON, copy.getItem());
+        assertEquals(7, copy.getX(), 0);
+        assertEquals(8, copy.getY(), 0);
+        assertEquals(9, copy.getEventTime());
+        assertTrue(copy.isChecked());
+
+        copy.recycle();
+    }
+
+    @Test
+    public void recycleTwiceThrows() {
+
+        final ItemEvent event = ItemEvent.obtain(ItemEvent.TEXT, 0, 0, 0, false);
+        event.recycle();
+
+        assertThrows(IllegalStateException.class, event::recycle);
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.skybird.controllayout;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+import com.skybird.controllayout.drawable.TextLayoutCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//text which starts to overflow its region must be invalidated where it is going to be drawn
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class TextInvalidationTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 600;
+
+    private static final String LONG_TEXT = "one two three four five six seven eight nine ten eleven twelve"
+            + " thirteen fourteen fifteen sixteen seventeen eighteen nineteen twenty";
+
+    //union of the rectangles the layout asked to redraw
+    private static final class RecordingLayout extends ControlLayout {
+
+        final Rect invalidated = new Rect();
+
+        RecordingLayout(Context context) {
+            super(context);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void invalidate(Rect dirty) {
+            invalidated.union(dirty);
+            super.invalidate(dirty);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidated.set(0, 0, getWidth(), getHeight());
+            super.invalidate();
+        }
+    }
+
+    private RecordingLayout layout;
+    private final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+    @Before
+    public void setUp() {
+        layout = new RecordingLayout(RuntimeEnvironment.getApplication());
+        layout.setControlRegionHeight(60);
+        layout.setTextSize(20);
+        layout.setText("ok");
+
+        layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, WIDTH, HEIGHT);
+        layout.draw(canvas);
+
+        layout.invalidated.setEmpty();
+    }
+
+    @Test
+    public void setTextInvalidatesTheOverflow() {
+        layout.setText(LONG_TEXT);
+        assertOverflowInvalidated();
+    }
+
+    @Test
+    public void setTextSizeInvalidatesTheOverflow() {
+        layout.setTextSize(4);
+        layout.setText(LONG_TEXT);
+        layout.draw(canvas);
+        layout.invalidated.setEmpty();
+
+        layout.setTextSize(28);
+        assertOverflowInvalidated();
+    }
+
+    @Test
+    public void tickerTextInvalidatesTheOverflow() {
+        layout.setTickerMode(true);
+        layout.draw(canvas);
+        layout.invalidated.setEmpty();
+
+        layout.setText((CharSequence) LONG_TEXT);
+        assertOverflowInvalidated();
+    }
+
+    @Test
+    public void updateMeasuresTheTextOnce() {
+        final int obtained = TextLayoutCache.hitCount() + TextLayoutCache.missCount();
+
+        layout.beginUpdate();
+        layout.setText("first text of the update");
+        layout.setTextSize(24);
+        layout.setTextColor(0xff336699);
+        layout.setText(LONG_TEXT + " of the update");
+        layout.setTextSize(28);
+        layout.endUpdate();
+
+        assertEquals(1, TextLayoutCache.hitCount() + TextLayoutCache.missCount() - obtained);
+
+        //the update covers the overflow of the last text and draw uses the layout it measured
+        assertOverflowInvalidated();
+        assertEquals(1, TextLayoutCache.hitCount() + TextLayoutCache.missCount() - obtained);
+    }
+
+    private void assertOverflowInvalidated() {
+        final Rect invalidated = new Rect(layout.invalidated);
+        final Rect region = new Rect(layout.getTextRegion().getBounds());
+
+        layout.draw(canvas);
+        //the text is drawn now , the dirty bounds of the region cover where it was drawn
+        final Rect drawn = new Rect(layout.getTextRegion().getDirtyBounds());
+
+        assertTrue("text doesn't overflow " + region, drawn.height() > region.height() * 2);
+        assertTrue(invalidated + " doesn't cover " + drawn, invalidated.contains(drawn));
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.skybird.controllayout.drawable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assume.assumeTrue;
+
+//bytes allocated by the current thread , tests which need it are skipped (and reported) on jvms which don't count them
+final class Allocations {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private Allocations() {
+    }
+
+    static void assumeCounted() {
+        assumeTrue("the jvm doesn't count allocations of a thread",
+                THREADS instanceof com.sun.management.ThreadMXBean
+                        && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported());
+        ((com.sun.management.ThreadMXBean) THREADS).setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private static long allocatedBytes(long threadId) {
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(threadId);
+    }
+
+    /*
+        bytes allocated by the runnable , it is run once before so first time initializations are
+        not counted , and what reading the counter allocates itself is taken off
+     */
+    static long measure(Runnable runnable) {
+        final long threadId = Thread.currentThread().getId();
+
+        runnable.run();
+
+        long before = allocatedBytes(threadId);
+        final long counter = allocatedBytes(threadId) - before;
+
+        before = allocatedBytes(threadId);
+        runnable.run();
+        return allocatedBytes(threadId) - before - counter;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+    drawing a TextDrawable again allocates nothing. the canvas doesn't draw , so only the drawable
+    is measured and not the rendering of the platform (or of its shadows)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class TextDrawableAllocationTest {
+
+    private static final class NullCanvas extends Canvas {
+
+        int drawnTexts;
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            drawnTexts++;
+        }
+
+        @Override
+        public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+            drawnTexts++;
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+    }
+
+    private TextDrawable drawable;
+    private final NullCanvas canvas = new NullCanvas();
+
+    @Before
+    public void setUp() {
+        Allocations.assumeCounted();
+
+        drawable = new TextDrawable(new Rect(0, 0, 200, 60));
+        drawable.getTextPaint().setTextSize(20);
+        drawable.setDrawFrame(true);
+    }
+
+    @Test
+    public void drawingTextDoesNotAllocate() {
+        drawable.setText("several words which are wrapped into lines");
+        assertDrawsWithoutAllocating();
+    }
+
+    @Test
+    public void drawingAutoSizedTextDoesNotAllocate() {
+        drawable.setAutoSize(8, 40, 1, 0);
+        drawable.setText("several words which are wrapped into lines");
+        assertDrawsWithoutAllocating();
+    }
+
+    @Test
+    public void drawingTickerTextDoesNotAllocate() {
+        drawable.setTickerMode(true);
+        drawable.setText((CharSequence) "00:12:34");
+        assertDrawsWithoutAllocating();
+    }
+
+    private void assertDrawsWithoutAllocating() {
+        final long allocated = Allocations.measure(() -> {
+            for (int i = 0; i < 1000; i++)
+                drawable.draw(canvas);
+        });
+
+        assertEquals(0, allocated);
+        //the text is really drawn , not skipped
+        assertTrue(canvas.drawnTexts > 0);
+    }
+
+}
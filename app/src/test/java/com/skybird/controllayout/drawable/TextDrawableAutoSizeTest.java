@@ -0,0 +1,67 @@
+package com.skybird.controllayout.drawable;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertTrue;
+
+//the auto size is checked with the real layout , the drawn lines never need more room than the bounds
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 30)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class TextDrawableAutoSizeTest {
+
+    private static final String TEXT = "several words which are wrapped into lines";
+    private static final int MAX_LINES = 2;
+    private static final int HEIGHT = 60;
+
+    private static final class LineCanvas extends Canvas {
+
+        int lines;
+        float widestLine;
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            final float[] advances = new float[end - start];
+            paint.getTextWidths(text, start, end, advances);
+
+            float width = 0;
+            for (float advance : advances)
+                width += advance;
+
+            lines++;
+            widestLine = Math.max(widestLine, width);
+        }
+    }
+
+    private TextDrawable drawable;
+
+    @Before
+    public void setUp() {
+        drawable = new TextDrawable(new Rect(0, 0, 200, HEIGHT));
+        drawable.setAutoSize(4, 40, 0.5f, MAX_LINES);
+        drawable.setText(TEXT);
+    }
+
+    @Test
+    public void drawnLinesFitTheBounds() {
+        for (int width = 80; width <= 320; width += 3) {
+            drawable.setBounds(0, 0, width, HEIGHT);
+
+            final LineCanvas canvas = new LineCanvas();
+            drawable.draw(canvas);
+
+            assertTrue("lines at width " + width, canvas.lines > 0 && canvas.lines <= MAX_LINES);
+            assertTrue("line width at width " + width, canvas.widestLine <= width);
+        }
+    }
+
+}
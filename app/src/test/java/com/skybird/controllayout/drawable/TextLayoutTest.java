@@ -0,0 +1,218 @@
+package com.skybird.controllayout.drawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+//wrapping over synthetic advances , every char of a cluster but the first has no advance like getTextWidths
+public class TextLayoutTest {
+
+    private static final String FAMILY = "\uD83D\uDC68\u200D\uD83D\uDC69\u200D\uD83D\uDC67";
+    private static final String FLAG_IR = "\uD83C\uDDEE\uD83C\uDDF7";
+    private static final String FLAG_DE = "\uD83C\uDDE9\uD83C\uDDEA";
+    private static final String GRINNING = "\uD83D\uDE00";
+    //combining acute accent and diaeresis
+    private static final String E_ACUTE = "e\u0301";
+    private static final String A_DIAERESIS = "a\u0308";
+
+    @Test
+    public void asciiWithoutSpacesWrapsLikeTheOldLoop() {
+
+        final String chars = "abcdefghijklmnopqrstuvwxyzMWil0123456789.,;";
+
+        for (int length = 1; length <= 60; length++) {
+
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < length; i++)
+                builder.append(chars.charAt((i * 7 + length) % chars.length()));
+            final String text = builder.toString();
+            final float[] advances = asciiAdvances(text);
+
+            for (int width = 1; width <= 200; width += 3) {
+
+                final TextLayout layout = new TextLayout();
+                layout.breakLines(text, advances, length, width);
+
+                final int[][] expected = oldLoop(advances, length, width);
+                assertArrayEquals(text + " at " + width, expected[0], starts(layout));
+                assertArrayEquals(text + " at " + width, expected[1], ends(layout));
+            }
+        }
+    }
+
+    @Test
+    public void wordsAreBrokenAfterTheLastWhitespace() {
+
+        final String text = "aaa bbb ccc";
+        final TextLayout layout = new TextLayout();
+        //ten pixels per char , 2 * 10 is taken off of the width like the old loop did
+        layout.breakLines(text, uniformAdvances(text.length()), text.length(), 100);
+
+        assertEquals(2, layout.lineCount);
+        assertEquals("aaa bbb", line(text, layout, 0));
+        assertEquals("ccc", line(text, layout, 1));
+    }
+
+    @Test
+    public void newlineForcesABreak() {
+
+        final String text = "ab\ncd\n\nef";
+        final TextLayout layout = new TextLayout();
+        layout.breakLines(text, uniformAdvances(text.length()), text.length(), 1000);
+
+        assertEquals(4, layout.lineCount);
+        assertEquals("ab", line(text, layout, 0));
+        assertEquals("cd", line(text, layout, 1));
+        assertEquals("", line(text, layout, 2));
+        assertEquals("ef", line(text, layout, 3));
+    }
+
+    @Test
+    public void surrogatePairsAreNeverSplit() {
+        assertClustersKept("a", GRINNING, "b");
+    }
+
+    @Test
+    public void zwjSequencesAreNeverSplit() {
+        assertClustersKept("x", FAMILY, "y");
+    }
+
+    @Test
+    public void flagsAreNeverSplit() {
+        assertClustersKept(FLAG_IR, FLAG_DE, FLAG_DE, FLAG_IR);
+    }
+
+    @Test
+    public void combiningMarksAreNeverSplit() {
+        assertClustersKept(E_ACUTE, A_DIAERESIS, "o");
+    }
+
+    @Test
+    public void breakingAgainDoesNotAllocate() {
+        Allocations.assumeCounted();
+
+        final String text = "one two three four five six seven eight nine ten";
+        final float[] advances = uniformAdvances(text.length());
+        final TextLayout layout = new TextLayout();
+        layout.breakLines(text, advances, text.length(), 120);
+
+        final int[] lineStart = layout.lineStart;
+        final int[] lineEnd = layout.lineEnd;
+        final float[] lineWidth = layout.lineWidth;
+
+        final long allocated = Allocations.measure(() -> {
+            for (int i = 0; i < 10000; i++)
+                layout.breakLines(text, advances, text.length(), 60 + i % 100);
+        });
+
+        assertEquals(0, allocated);
+        assertSame(lineStart, layout.lineStart);
+        assertSame(lineEnd, layout.lineEnd);
+        assertSame(lineWidth, layout.lineWidth);
+    }
+
+    //lines of the clusters repeated at every width only start and end at the boundaries of the clusters
+    private static void assertClustersKept(String... clusters) {
+
+        final StringBuilder builder = new StringBuilder();
+        final boolean[] boundary = new boolean[64 * 16];
+        for (int i = 0; i < 16; i++) {
+            for (String cluster : clusters) {
+                boundary[builder.length()] = true;
+                builder.append(cluster);
+            }
+        }
+        final String text = builder.toString();
+        boundary[text.length()] = true;
+
+        final float[] advances = new float[text.length()];
+        for (int i = 0; i < text.length(); i++)
+            advances[i] = boundary[i] ? 10 : 0;
+
+        for (int width = 1; width <= 200; width += 7) {
+
+            final TextLayout layout = new TextLayout();
+            layout.breakLines(text, advances, text.length(), width);
+
+            assertEquals(0, layout.lineStart[0]);
+            assertEquals(text.length(), layout.lineEnd[layout.lineCount - 1]);
+
+            for (int line = 0; line < layout.lineCount; line++) {
+                assertTrue("line " + line + " starts inside of a cluster at " + width,
+                        boundary[layout.lineStart[line]]);
+                assertTrue("line " + line + " ends inside of a cluster at " + width,
+                        boundary[layout.lineEnd[line]]);
+            }
+        }
+    }
+
+    /*
+        wrapping loop of TextLayout before it worked on advances , with the ink width of a range
+        being the sum of its advances : a line takes chars until it is at least width minus two
+        average chars wide and always takes at least one char
+     */
+    private static int[][] oldLoop(float[] advances, int length, int width) {
+
+        int total = 0;
+        for (int i = 0; i < length; i++)
+            total += (int) advances[i];
+        final int charWidth = total / length;
+
+        final int[] starts = new int[length];
+        final int[] ends = new int[length];
+        int lineCount = 0;
+
+        for (int index = 0; index < length; ) {
+
+            final int start = index;
+            int tempTextWidth = 0;
+
+            while (index < length && (index == start || tempTextWidth < width - (2 * charWidth))) {
+                tempTextWidth += (int) advances[index];
+                index++;
+            }
+
+            starts[lineCount] = start;
+            ends[lineCount] = index;
+            lineCount++;
+        }
+
+        return new int[][]{copyOf(starts, lineCount), copyOf(ends, lineCount)};
+    }
+
+    private static float[] asciiAdvances(String text) {
+        final float[] advances = new float[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            advances[i] = c == 'i' || c == 'l' || c == '.' || c == ',' || c == ';' ? 3
+                    : c == 'M' || c == 'W' ? 11 : 7;
+        }
+        return advances;
+    }
+
+    private static float[] uniformAdvances(int length) {
+        final float[] advances = new float[length];
+        java.util.Arrays.fill(advances, 10);
+        return advances;
+    }
+
+    private static int[] starts(TextLayout layout) {
+        return copyOf(layout.lineStart, layout.lineCount);
+    }
+
+    private static int[] ends(TextLayout layout) {
+        return copyOf(layout.lineEnd, layout.lineCount);
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        return java.util.Arrays.copyOf(array, length);
+    }
+
+    private static String line(String text, TextLayout layout, int line) {
+        return text.substring(layout.lineStart[line], layout.lineEnd[line]);
+    }
+
+}